@@ -0,0 +1,166 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+
+/**
+ * Runs javac with our annotation processor on sources in memory. Only annotation processing is done (no class files are generated) and generated
+ * files are kept in memory, so the cost measured is mostly that of the processor and not of disk IO.
+ *
+ * @author mmc
+ */
+public final class InMemoryCompilation implements AutoCloseable
+{
+	private final JavaCompiler compiler;
+	private final StandardJavaFileManager standardFileManager;
+	private final List<String> javacOptions;
+
+	/**
+	 * Generated file kept in memory.
+	 */
+	private static final class OutputFile extends SimpleJavaFileObject
+	{
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private OutputFile(String name, Kind kind)
+		{
+			super(URI.create("mem:///"+name), kind);
+		}
+
+		@Override
+		public OutputStream openOutputStream()
+		{
+			content.reset();
+			return content;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors)
+		{
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * File manager that keeps all generated files in memory.
+	 */
+	private static final class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager>
+	{
+		private final Map<String, OutputFile> outputs = new HashMap<String, OutputFile>();
+
+		private InMemoryFileManager(JavaFileManager fileManager)
+		{
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling)
+		{
+			return outputs.computeIfAbsent(location.getName()+"/"+className.replace('.', '/')+kind.extension, n -> new OutputFile(n, kind));
+		}
+
+		@Override
+		public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling)
+		{
+			return outputs.computeIfAbsent(location.getName()+"/"+packageName.replace('.', '/')+"/"+relativeName, n -> new OutputFile(n, JavaFileObject.Kind.OTHER));
+		}
+
+		@Override
+		public boolean isSameFile(FileObject a, FileObject b)
+		{
+			// The standard file manager does not support files it has not created itself.
+			if (a instanceof OutputFile || b instanceof OutputFile)
+				return a==b;
+			return super.isSameFile(a, b);
+		}
+
+		private int getGeneratedSourceCount()
+		{
+			return (int)outputs.values().stream().filter(f -> f.getKind()==JavaFileObject.Kind.SOURCE).count();
+		}
+	}
+
+	/**
+	 * Create a compilation setup that can be run many times.
+	 *
+	 * @param sourcePath Folder to use as VALJOGen source path (where custom templates are found).
+	 * @param extraProcessorOptions Additional annotation processor options (without qualifier prefix) as key, value pairs.
+	 */
+	public InMemoryCompilation(Path sourcePath, String... extraProcessorOptions)
+	{
+		this.compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler==null)
+			throw new IllegalStateException("No system java compiler available. Benchmarks must be run on a JDK");
+
+		this.standardFileManager = compiler.getStandardFileManager(null, Locale.ENGLISH, StandardCharsets.UTF_8);
+
+		List<String> options = new ArrayList<String>(Arrays.asList("-proc:only", "-parameters", "-classpath", System.getProperty("java.class.path")));
+		options.add("-A"+ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.SOURCEPATH+"="+sourcePath.toAbsolutePath());
+		for (int i=0; i+1<extraProcessorOptions.length; i+=2)
+			options.add("-A"+ConfigurationDefaults.OPTION_QUALIFIER+extraProcessorOptions[i]+"="+extraProcessorOptions[i+1]);
+
+		this.javacOptions = Collections.unmodifiableList(options);
+	}
+
+	/**
+	 * Run javac with a new instance of our annotation processor (like a build tool would).
+	 *
+	 * @param sources The sources to process.
+	 *
+	 * @return Number of generated source files.
+	 *
+	 * @throws IllegalStateException If compilation fails.
+	 */
+	public int run(List<JavaFileObject> sources)
+	{
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		InMemoryFileManager fileManager = new InMemoryFileManager(standardFileManager);
+
+		JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, javacOptions, null, sources);
+		task.setProcessors(Collections.singleton(new AnnotationProcessor()));
+
+		if (!task.call())
+		{
+			String errors = diagnostics.getDiagnostics().stream().filter(d -> d.getKind()==Diagnostic.Kind.ERROR).limit(10).map(d -> d.getMessage(Locale.ENGLISH)).collect(Collectors.joining(System.lineSeparator()));
+			throw new IllegalStateException("Compilation failed:"+System.lineSeparator()+errors);
+		}
+
+		return fileManager.getGeneratedSourceCount();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		standardFileManager.close();
+	}
+}
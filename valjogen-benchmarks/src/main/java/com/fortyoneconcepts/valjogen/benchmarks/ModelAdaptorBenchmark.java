@@ -0,0 +1,86 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.stringtemplate.v4.ModelAdaptor;
+import org.stringtemplate.v4.misc.ObjectModelAdaptor;
+
+import com.fortyoneconcepts.valjogen.processor.STCustomModelAdaptor;
+
+/**
+ * Benchmarks of reading non-magic template properties of a model like class through the model adaptor, which is what templates do for every
+ * property they use. Compares the reflective access of ST's own adaptor with the compiled accessors of the processor's adaptor. The parallel
+ * variant reads from several threads at once, each with its own adaptor like the render threads.
+ *
+ * @author mmc
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelAdaptorBenchmark
+{
+	public static final String REFLECTIVE = "reflective";
+	public static final String COMPILED = "compiled";
+
+	private static final String[] propertyNames = { "name", "final", "primitive", "type", "mutable" };
+
+	@Param({ REFLECTIVE, COMPILED })
+	public String adaptorKind;
+
+	private ModelAdaptor adaptor;
+	private ModelLike model;
+
+	/**
+	 * Model like class with the get/is/has property conventions used by templates.
+	 */
+	public static class ModelLike
+	{
+		public String getName() { return "value"; }
+		public boolean isFinal() { return true; }
+		public boolean isPrimitive() { return false; }
+		public String getType() { return "int"; }
+		public boolean hasMutable() { return true; }
+	}
+
+	@Setup
+	public void setUp()
+	{
+		adaptor = adaptorKind.equals(COMPILED) ? new STCustomModelAdaptor() : new ObjectModelAdaptor();
+		model = new ModelLike();
+	}
+
+	/**
+	 * Read all properties once.
+	 *
+	 * @return The last value read.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(5)
+	public Object getProperty()
+	{
+		Object result = null;
+		for (String propertyName : propertyNames)
+			result = adaptor.getProperty(null, null, model, propertyName, propertyName);
+		return result;
+	}
+
+	/**
+	 * Read all properties once from each of 4 threads.
+	 *
+	 * @return The last value read.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(5)
+	@Threads(4)
+	public Object getPropertyParallel()
+	{
+		return getProperty();
+	}
+}
@@ -0,0 +1,93 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaFileObject;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of running the annotation processor in javac over synthetic interfaces. Measures both warm throughput (JIT compiled processor, repeated
+ * compilations in the same JVM like a build daemon) and cold start time (first compilation in a new JVM like a command line build).
+ *
+ * The full parameter space is large. Use JMH's -p option to select parameters, e.g. "-p interfaceCount=100 -p propertyCount=50".
+ *
+ * @author mmc
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProcessorBenchmark
+{
+	@Param({ "1", "100", "5000" })
+	public int interfaceCount;
+
+	@Param({ "1", "50", "500" })
+	public int propertyCount;
+
+	@Param({ "true", "false" })
+	public boolean mutable;
+
+	@Param({ "false", "true" })
+	public boolean customTemplate;
+
+	private Path sourcePath;
+	private List<JavaFileObject> sources;
+	private InMemoryCompilation compilation;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		sourcePath = Files.createTempDirectory("valjogen-benchmark");
+		try (InputStream template = ProcessorBenchmark.class.getResourceAsStream(SyntheticSources.customTemplateFileName))
+		{
+			Files.copy(template, sourcePath.resolve(SyntheticSources.customTemplateFileName));
+		}
+
+		sources = SyntheticSources.create(interfaceCount, propertyCount, mutable, customTemplate);
+		compilation = new InMemoryCompilation(sourcePath);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception
+	{
+		compilation.close();
+		Files.deleteIfExists(sourcePath.resolve(SyntheticSources.customTemplateFileName));
+		Files.deleteIfExists(sourcePath);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MINUTES)
+	public int warmThroughput()
+	{
+		return run();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Fork(5)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	public int coldStart()
+	{
+		return run();
+	}
+
+	private int run()
+	{
+		int generated = compilation.run(sources);
+		if (generated!=interfaceCount)
+			throw new IllegalStateException("Expected "+interfaceCount+" generated files but got "+generated);
+		return generated;
+	}
+}
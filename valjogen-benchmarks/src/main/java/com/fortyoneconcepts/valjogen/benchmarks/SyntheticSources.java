@@ -0,0 +1,100 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * Creates synthetic annotated interfaces in memory for benchmarking the annotation processor.
+ *
+ * @author mmc
+ */
+public final class SyntheticSources
+{
+	/**
+	 * Name of package with the synthetic interfaces.
+	 */
+	public static final String packageName = "com.fortyoneconcepts.valjogen.benchmarks.generated";
+
+	/**
+	 * Name of the custom template used by interfaces when custom templates are enabled.
+	 */
+	public static final String customTemplateFileName = "benchmark_template.stg";
+
+	// Rotate between property types that exercise different code in the templates (primitives, objects, arrays and generics).
+	private static final String[] propertyTypes = { "int", "String", "long", "java.util.List<String>", "double", "java.util.Date", "boolean", "byte[]" };
+
+	/**
+	 * In memory source file.
+	 */
+	private static final class SourceFile extends SimpleJavaFileObject
+	{
+		private final String source;
+
+		private SourceFile(String qualifiedName, String source)
+		{
+			super(URI.create("string:///"+qualifiedName.replace('.', '/')+Kind.SOURCE.extension), Kind.SOURCE);
+			this.source=source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors)
+		{
+			return source;
+		}
+	}
+
+	private SyntheticSources()
+	{
+	}
+
+	/**
+	 * Create annotated interfaces that each have a getter and a setter for every property.
+	 *
+	 * @param interfaceCount Number of interfaces.
+	 * @param propertyCount Number of properties of each interface.
+	 * @param mutable If true setters return void, otherwise setters return a new instance.
+	 * @param customTemplate If true the interfaces use {@link SyntheticSources#customTemplateFileName} as custom template.
+	 *
+	 * @return The source files.
+	 */
+	public static List<JavaFileObject> create(int interfaceCount, int propertyCount, boolean mutable, boolean customTemplate)
+	{
+		List<JavaFileObject> sources = new ArrayList<JavaFileObject>(interfaceCount);
+		for (int i=0; i<interfaceCount; ++i)
+		{
+			String interfaceName = "Synthetic"+i;
+			sources.add(new SourceFile(packageName+"."+interfaceName, createInterface(interfaceName, propertyCount, mutable, customTemplate)));
+		}
+		return sources;
+	}
+
+	private static String createInterface(String interfaceName, int propertyCount, boolean mutable, boolean customTemplate)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(packageName).append(";\n\n");
+		sb.append("import com.fortyoneconcepts.valjogen.annotations.*;\n\n");
+		sb.append("@VALJOGenerate\n");
+		if (customTemplate)
+			sb.append("@VALJOConfigure(customJavaTemplateFileName=\"").append(customTemplateFileName).append("\")\n");
+		sb.append("public interface ").append(interfaceName).append("\n{\n");
+
+		for (int p=0; p<propertyCount; ++p)
+		{
+			String type = propertyTypes[p % propertyTypes.length];
+			String name = "Property"+p;
+
+			sb.append("  ").append(type).append(" get").append(name).append("();\n");
+			sb.append("  ").append(mutable ? "void" : interfaceName).append(" set").append(name).append("(").append(type).append(" value);\n");
+		}
+
+		sb.append("}\n");
+		return sb.toString();
+	}
+}
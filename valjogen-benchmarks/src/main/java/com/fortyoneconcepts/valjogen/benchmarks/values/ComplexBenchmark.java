@@ -0,0 +1,53 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fortyoneconcepts.valjogen.testsources.ComplexClass;
+import com.fortyoneconcepts.valjogen.testsources.ComplexInterfaceWithAllTypes;
+
+/**
+ * Benchmarks of the generated class from the integration tests with members of all kinds of types, including arrays and multi-dimensional arrays.
+ * There is no hand-written baseline so this shows the cost of the generated methods for many and complex members.
+ *
+ * @author mmc
+ */
+public class ComplexBenchmark extends ValueObjectBenchmark
+{
+	private ComplexInterfaceWithAllTypes other;
+	private Date date;
+
+	@Setup
+	public void setUp()
+	{
+		// Members may not be null so a leaf stand-in is used for the reference to another instance.
+		other = (ComplexInterfaceWithAllTypes)Proxy.newProxyInstance(ComplexInterfaceWithAllTypes.class.getClassLoader(), new Class<?>[] { ComplexInterfaceWithAllTypes.class },
+		                                                             (proxy, method, args) -> method.getName().equals("equals") ? proxy==args[0] : method.getName().equals("hashCode") ? 42 : "other");
+		date = new Date(0);
+
+		value = create();
+		equalValue = create(other, "string", 1.0);
+		earlyMismatchValue = create(other, "mismatch", 1.0);
+		lateMismatchValue = create(other, "string", 2.0);
+	}
+
+	@Override
+	protected Object create()
+	{
+		return create(other, "string", 1.0);
+	}
+
+	private Object create(ComplexInterfaceWithAllTypes other, String string, double lastValue)
+	{
+		return ComplexClass.valueOf(other, "object", string, date, new Object[] { "a", "b" }, new Object[][] { { "a" }, { "b" } },
+				                    (byte)1, 2, 3L, 'c', true, 1.5f, 2.5,
+				                    new byte[] { 1, 2 }, new int[] { 1, 2 }, new long[] { 1L, 2L }, new char[] { 'a', 'b' }, new boolean[] { true, false }, new float[] { 1f, 2f }, new double[] { 1.0, 2.0 },
+				                    new byte[][] { { 1 }, { 2 } }, new int[][] { { 1 }, { 2 } }, new long[][] { { 1L }, { 2L } }, new char[][] { { 'a' }, { 'b' } }, new boolean[][] { { true }, { false } },
+				                    new float[][] { { 1f }, { 2f } }, new double[][] { { 1.0 }, { lastValue } });
+	}
+}
@@ -0,0 +1,45 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+import com.fortyoneconcepts.valjogen.examples.ComparableNameImpl;
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePositionImpl;
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+import com.fortyoneconcepts.valjogen.examples.ImmutablePairImpl;
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+import com.fortyoneconcepts.valjogen.examples.MutablePairImpl;
+
+/**
+ * Creates value objects generated by VALJOGen from the examples.
+ *
+ * @author mmc
+ */
+final class GeneratedValueFactory implements ValueFactory
+{
+	@Override
+	public ImmutablePair<String, Integer> createPair(String left, Integer right)
+	{
+		return ImmutablePairImpl.valueOf(left, right);
+	}
+
+	@Override
+	public MutablePair<String, Integer> createMutablePair(String left, Integer right)
+	{
+		return MutablePairImpl.valueOf(left, right);
+	}
+
+	@Override
+	public ComparableName createName(String firstName, String lastName)
+	{
+		return ComparableNameImpl.valueOf(firstName, lastName);
+	}
+
+	@Override
+	public ExternalizablePosition createPosition(int x, int y)
+	{
+		return ExternalizablePositionImpl.valueOf(x, y);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import java.util.Objects;
+
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+
+/**
+ * Hand-written mutable pair used as baseline for the generated implementation.
+ *
+ * @param <TLeft> First object type in pair.
+ * @param <TRight> Second object type in pair.
+ *
+ * @author mmc
+ */
+final class HandWrittenMutablePair<TLeft, TRight> implements MutablePair<TLeft, TRight>
+{
+	private TLeft left;
+	private TRight right;
+
+	HandWrittenMutablePair(TLeft left, TRight right)
+	{
+		this.left=left;
+		this.right=right;
+	}
+
+	@Override
+	public TLeft getLeft()
+	{
+		return left;
+	}
+
+	@Override
+	public void setLeft(TLeft left)
+	{
+		this.left=left;
+	}
+
+	@Override
+	public TRight getRight()
+	{
+		return right;
+	}
+
+	@Override
+	public void setRight(TRight right)
+	{
+		this.right=right;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31*(31+Objects.hashCode(left))+Objects.hashCode(right);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this==obj)
+			return true;
+		if (!(obj instanceof HandWrittenMutablePair))
+			return false;
+		HandWrittenMutablePair<?, ?> other = (HandWrittenMutablePair<?, ?>)obj;
+		return Objects.equals(left, other.left) && Objects.equals(right, other.right);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HandWrittenMutablePair [left="+left+", right="+right+"]";
+	}
+}
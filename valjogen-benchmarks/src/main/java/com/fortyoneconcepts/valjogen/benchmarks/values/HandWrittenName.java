@@ -0,0 +1,67 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+
+/**
+ * Hand-written comparable name used as baseline for the generated implementation.
+ *
+ * @author mmc
+ */
+final class HandWrittenName implements ComparableName, Comparable<HandWrittenName>
+{
+	private final String firstName;
+	private final String lastName;
+
+	HandWrittenName(String firstName, String lastName)
+	{
+		if (firstName==null || lastName==null)
+			throw new NullPointerException();
+		this.firstName=firstName;
+		this.lastName=lastName;
+	}
+
+	@Override
+	public String getFirstName()
+	{
+		return firstName;
+	}
+
+	@Override
+	public String getLastName()
+	{
+		return lastName;
+	}
+
+	@Override
+	public int compareTo(HandWrittenName other)
+	{
+		int result = lastName.compareTo(other.lastName);
+		return result!=0 ? result : firstName.compareTo(other.firstName);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31*(31+firstName.hashCode())+lastName.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this==obj)
+			return true;
+		if (!(obj instanceof HandWrittenName))
+			return false;
+		HandWrittenName other = (HandWrittenName)obj;
+		return firstName.equals(other.firstName) && lastName.equals(other.lastName);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HandWrittenName [firstName="+firstName+", lastName="+lastName+"]";
+	}
+}
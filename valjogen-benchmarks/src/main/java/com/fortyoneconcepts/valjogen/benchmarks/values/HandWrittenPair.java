@@ -0,0 +1,75 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+
+/**
+ * Hand-written immutable pair used as baseline for the generated implementation.
+ *
+ * @param <TLeft> First object type in pair.
+ * @param <TRight> Second object type in pair.
+ *
+ * @author mmc
+ */
+final class HandWrittenPair<TLeft, TRight> implements ImmutablePair<TLeft, TRight>
+{
+	private final TLeft left;
+	private final TRight right;
+
+	HandWrittenPair(TLeft left, TRight right)
+	{
+		if (left==null || right==null)
+			throw new NullPointerException();
+		this.left=left;
+		this.right=right;
+	}
+
+	@Override
+	public TLeft getLeft()
+	{
+		return left;
+	}
+
+	@Override
+	public ImmutablePair<TLeft, TRight> setLeft(TLeft left)
+	{
+		return new HandWrittenPair<TLeft, TRight>(left, right);
+	}
+
+	@Override
+	public TRight getRight()
+	{
+		return right;
+	}
+
+	@Override
+	public ImmutablePair<TLeft, TRight> setRight(TRight right)
+	{
+		return new HandWrittenPair<TLeft, TRight>(left, right);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31*(31+left.hashCode())+right.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this==obj)
+			return true;
+		if (!(obj instanceof HandWrittenPair))
+			return false;
+		HandWrittenPair<?, ?> other = (HandWrittenPair<?, ?>)obj;
+		return left.equals(other.left) && right.equals(other.right);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HandWrittenPair [left="+left+", right="+right+"]";
+	}
+}
@@ -0,0 +1,82 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+
+/**
+ * Hand-written externalizable position used as baseline for the generated implementation.
+ *
+ * @author mmc
+ */
+public final class HandWrittenPosition implements ExternalizablePosition
+{
+	private static final long serialVersionUID = 42;
+
+	private int x;
+	private int y;
+
+	public HandWrittenPosition()
+	{
+	}
+
+	HandWrittenPosition(int x, int y)
+	{
+		this.x=x;
+		this.y=y;
+	}
+
+	@Override
+	public int getX()
+	{
+		return x;
+	}
+
+	@Override
+	public int getY()
+	{
+		return y;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException
+	{
+		out.writeInt(x);
+		out.writeInt(y);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException
+	{
+		x=in.readInt();
+		y=in.readInt();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31*(31+x)+y;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this==obj)
+			return true;
+		if (!(obj instanceof HandWrittenPosition))
+			return false;
+		HandWrittenPosition other = (HandWrittenPosition)obj;
+		return x==other.x && y==other.y;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HandWrittenPosition [x="+x+", y="+y+"]";
+	}
+}
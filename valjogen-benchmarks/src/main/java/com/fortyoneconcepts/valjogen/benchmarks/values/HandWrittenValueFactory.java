@@ -0,0 +1,41 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+
+/**
+ * Creates hand-written value objects that are used as baseline.
+ *
+ * @author mmc
+ */
+final class HandWrittenValueFactory implements ValueFactory
+{
+	@Override
+	public ImmutablePair<String, Integer> createPair(String left, Integer right)
+	{
+		return new HandWrittenPair<String, Integer>(left, right);
+	}
+
+	@Override
+	public MutablePair<String, Integer> createMutablePair(String left, Integer right)
+	{
+		return new HandWrittenMutablePair<String, Integer>(left, right);
+	}
+
+	@Override
+	public ComparableName createName(String firstName, String lastName)
+	{
+		return new HandWrittenName(firstName, lastName);
+	}
+
+	@Override
+	public ExternalizablePosition createPosition(int x, int y)
+	{
+		return new HandWrittenPosition(x, y);
+	}
+}
@@ -0,0 +1,53 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+
+/**
+ * Benchmarks of the mutable pair example including its setter. There is no record implementation as records can not be mutable.
+ *
+ * @author mmc
+ */
+public class MutablePairBenchmark extends ValueObjectBenchmark
+{
+	@Param({ ValueFactory.GENERATED, ValueFactory.HANDWRITTEN })
+	public String implementation;
+
+	private ValueFactory factory;
+	private String left;
+	private Integer right;
+	private String otherLeft;
+	private MutablePair<String, Integer> settableValue;
+
+	@Setup
+	public void setUp()
+	{
+		factory = ValueFactory.forImplementation(implementation);
+		left = "left";
+		right = Integer.valueOf(4242);
+		otherLeft = "other";
+
+		value = create();
+		equalValue = factory.createMutablePair(new String(left), Integer.valueOf(4242));
+		earlyMismatchValue = factory.createMutablePair(otherLeft, right);
+		lateMismatchValue = factory.createMutablePair(left, Integer.valueOf(4343));
+		settableValue = factory.createMutablePair(left, right);
+	}
+
+	@Override
+	protected Object create()
+	{
+		return factory.createMutablePair(left, right);
+	}
+
+	@Benchmark
+	public MutablePair<String, Integer> setter()
+	{
+		settableValue.setLeft(otherLeft);
+		return settableValue;
+	}
+}
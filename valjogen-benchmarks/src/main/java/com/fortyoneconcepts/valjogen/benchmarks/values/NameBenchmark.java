@@ -0,0 +1,52 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the comparable name example including compareTo.
+ *
+ * @author mmc
+ */
+public class NameBenchmark extends ValueObjectBenchmark
+{
+	@Param({ ValueFactory.GENERATED, ValueFactory.HANDWRITTEN })
+	public String implementation;
+
+	private ValueFactory factory;
+	private String firstName;
+	private String lastName;
+
+	@Setup
+	public void setUp()
+	{
+		factory = ValueFactory.forImplementation(implementation);
+		firstName = "Morten";
+		lastName = "Christensen";
+
+		value = create();
+		equalValue = factory.createName(new String(firstName), new String(lastName));
+		earlyMismatchValue = factory.createName("Mette", lastName);
+		lateMismatchValue = factory.createName(firstName, "Christiansen");
+	}
+
+	@Override
+	protected Object create()
+	{
+		return factory.createName(firstName, lastName);
+	}
+
+	/**
+	 * Compare with an equal value, so all members are compared.
+	 *
+	 * @return Result of compareTo.
+	 */
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public int compareTo()
+	{
+		return ((Comparable<Object>)value).compareTo(equalValue);
+	}
+}
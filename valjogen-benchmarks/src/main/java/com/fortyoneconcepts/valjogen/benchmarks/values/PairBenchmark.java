@@ -0,0 +1,52 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+
+/**
+ * Benchmarks of the immutable pair example including its wither (immutable setter).
+ *
+ * @author mmc
+ */
+public class PairBenchmark extends ValueObjectBenchmark
+{
+	@Param({ ValueFactory.GENERATED, ValueFactory.HANDWRITTEN })
+	public String implementation;
+
+	private ValueFactory factory;
+	private String left;
+	private Integer right;
+	private String otherLeft;
+
+	@Setup
+	public void setUp()
+	{
+		factory = ValueFactory.forImplementation(implementation);
+		left = "left";
+		right = Integer.valueOf(4242);
+		otherLeft = "other";
+
+		value = create();
+		equalValue = factory.createPair(new String(left), Integer.valueOf(4242));
+		earlyMismatchValue = factory.createPair(otherLeft, right);
+		lateMismatchValue = factory.createPair(left, Integer.valueOf(4343));
+	}
+
+	@Override
+	protected Object create()
+	{
+		return factory.createPair(left, right);
+	}
+
+	@Benchmark
+	public ImmutablePair<String, Integer> wither()
+	{
+		@SuppressWarnings("unchecked")
+		ImmutablePair<String, Integer> pair = (ImmutablePair<String, Integer>)value;
+		return pair.setLeft(otherLeft);
+	}
+}
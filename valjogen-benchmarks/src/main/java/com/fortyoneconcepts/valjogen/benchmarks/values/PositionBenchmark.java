@@ -0,0 +1,40 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the externalizable position example with primitive members.
+ *
+ * @author mmc
+ */
+public class PositionBenchmark extends ValueObjectBenchmark
+{
+	@Param({ ValueFactory.GENERATED, ValueFactory.HANDWRITTEN })
+	public String implementation;
+
+	private ValueFactory factory;
+	private int x;
+	private int y;
+
+	@Setup
+	public void setUp()
+	{
+		factory = ValueFactory.forImplementation(implementation);
+		x = 41;
+		y = 42;
+
+		value = create();
+		equalValue = factory.createPosition(x, y);
+		earlyMismatchValue = factory.createPosition(x+1, y);
+		lateMismatchValue = factory.createPosition(x, y+1);
+	}
+
+	@Override
+	protected Object create()
+	{
+		return factory.createPosition(x, y);
+	}
+}
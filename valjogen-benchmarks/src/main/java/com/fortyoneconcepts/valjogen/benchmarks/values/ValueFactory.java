@@ -0,0 +1,80 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+
+/**
+ * Creates value objects of one implementation (generated, hand-written or records), so the same benchmark can measure all implementations.
+ *
+ * @author mmc
+ */
+public interface ValueFactory
+{
+	/**
+	 * Implementation generated by VALJOGen from the example interfaces.
+	 */
+	public static final String GENERATED = "generated";
+
+	/**
+	 * Hand-written implementation as a baseline.
+	 */
+	public static final String HANDWRITTEN = "handwritten";
+
+	/**
+	 * Java records (only available when the benchmarks are build with JDK 16 or later).
+	 */
+	public static final String RECORD = "record";
+
+	/**
+	 * Name of record factory class that is only compiled with JDK 16 or later.
+	 */
+	public static final String recordFactoryClassName = ValueFactory.class.getPackage().getName()+".records.RecordValueFactory";
+
+	ImmutablePair<String, Integer> createPair(String left, Integer right);
+
+	MutablePair<String, Integer> createMutablePair(String left, Integer right);
+
+	ComparableName createName(String firstName, String lastName);
+
+	ExternalizablePosition createPosition(int x, int y);
+
+	/**
+	 * Get the factory of an implementation.
+	 *
+	 * @param implementation One of {@link ValueFactory#GENERATED}, {@link ValueFactory#HANDWRITTEN} or {@link ValueFactory#RECORD}.
+	 *
+	 * @return The factory.
+	 *
+	 * @throws IllegalArgumentException If the implementation is unknown or not available.
+	 */
+	public static ValueFactory forImplementation(String implementation)
+	{
+		switch (implementation)
+		{
+			case GENERATED: return new GeneratedValueFactory();
+			case HANDWRITTEN: return new HandWrittenValueFactory();
+			case RECORD:
+				if (!isRecordAvailable())
+					throw new IllegalArgumentException("Record implementations requires the benchmarks to be build with JDK 16 or later");
+				try {
+					return (ValueFactory)Class.forName(recordFactoryClassName).newInstance();
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalArgumentException("Could not create "+recordFactoryClassName, e);
+				}
+			default: throw new IllegalArgumentException("Unknown implementation "+implementation);
+		}
+	}
+
+	/**
+	 * @return True if the benchmarks has been build with record implementations.
+	 */
+	public static boolean isRecordAvailable()
+	{
+		return ValueFactory.class.getClassLoader().getResource(recordFactoryClassName.replace('.', '/')+".class")!=null;
+	}
+}
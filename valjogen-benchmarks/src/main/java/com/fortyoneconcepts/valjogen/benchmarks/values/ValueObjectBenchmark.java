@@ -0,0 +1,71 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Common benchmarks of the methods all value objects have. Subclasses set up a value together with an equal value and values that differ in
+ * the first and the last member, so equals is measured both when all members are compared and when the comparison stops early.
+ *
+ * Run with the GC profiler (-prof gc or {@link ValueObjectBenchmarkRunner}) to also get allocation rates.
+ *
+ * @author mmc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class ValueObjectBenchmark
+{
+	protected Object value;
+	protected Object equalValue;
+	protected Object earlyMismatchValue;
+	protected Object lateMismatchValue;
+
+	/**
+	 * @return A new value object created by its static factory method or constructor.
+	 */
+	protected abstract Object create();
+
+	@Benchmark
+	public int hashCodeOf()
+	{
+		return value.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsEqual()
+	{
+		return value.equals(equalValue);
+	}
+
+	@Benchmark
+	public boolean equalsEarlyMismatch()
+	{
+		return value.equals(earlyMismatchValue);
+	}
+
+	@Benchmark
+	public boolean equalsLateMismatch()
+	{
+		return value.equals(lateMismatchValue);
+	}
+
+	@Benchmark
+	public String toStringOf()
+	{
+		return value.toString();
+	}
+
+	@Benchmark
+	public Object valueOf()
+	{
+		return create();
+	}
+}
@@ -0,0 +1,53 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the value object benchmarks with the GC profiler, so allocation rates are reported, and with record implementations when available.
+ * Additional JMH command line options may be given as arguments.
+ *
+ * @author mmc
+ */
+public final class ValueObjectBenchmarkRunner
+{
+	private ValueObjectBenchmarkRunner()
+	{
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException
+	{
+		Options commandLineOptions = new CommandLineOptions(args);
+		String packagePattern = ValueObjectBenchmarkRunner.class.getPackage().getName().replace(".", "\\.")+"\\.";
+
+		String recordBenchmarks = packagePattern+"(Pair|Name|Position)Benchmark\\.";
+
+		if (ValueFactory.isRecordAvailable()) {
+			// Records can not be mutable so benchmarks of mutable value objects are run without records. Excludes are used as includes
+			// from the command line are added to our own.
+			new Runner(createOptions(commandLineOptions).include(recordBenchmarks)
+			                                            .exclude(packagePattern+"(MutablePair|Complex)Benchmark\\.")
+			                                            .param("implementation", ValueFactory.GENERATED, ValueFactory.HANDWRITTEN, ValueFactory.RECORD)
+			                                            .build()).run();
+
+			new Runner(createOptions(commandLineOptions).include(packagePattern).exclude(recordBenchmarks).build()).run();
+		} else {
+			new Runner(createOptions(commandLineOptions).include(packagePattern).build()).run();
+		}
+	}
+
+	private static OptionsBuilder createOptions(Options commandLineOptions)
+	{
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLineOptions).addProfiler(GCProfiler.class);
+		return options;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values.records;
+
+import java.util.Objects;
+
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+
+/**
+ * Record implementation of the comparable name example.
+ *
+ * @param firstName First name.
+ * @param lastName Last name.
+ *
+ * @author mmc
+ */
+record RecordName(String firstName, String lastName) implements ComparableName, Comparable<RecordName>
+{
+	RecordName
+	{
+		Objects.requireNonNull(firstName);
+		Objects.requireNonNull(lastName);
+	}
+
+	@Override
+	public String getFirstName()
+	{
+		return firstName;
+	}
+
+	@Override
+	public String getLastName()
+	{
+		return lastName;
+	}
+
+	@Override
+	public int compareTo(RecordName other)
+	{
+		int result = lastName.compareTo(other.lastName);
+		return result!=0 ? result : firstName.compareTo(other.firstName);
+	}
+}
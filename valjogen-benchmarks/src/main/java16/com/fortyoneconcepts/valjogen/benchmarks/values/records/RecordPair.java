@@ -0,0 +1,51 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values.records;
+
+import java.util.Objects;
+
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+
+/**
+ * Record implementation of the immutable pair example.
+ *
+ * @param <TLeft> First object type in pair.
+ * @param <TRight> Second object type in pair.
+ * @param left First object.
+ * @param right Second object.
+ *
+ * @author mmc
+ */
+record RecordPair<TLeft, TRight>(TLeft left, TRight right) implements ImmutablePair<TLeft, TRight>
+{
+	RecordPair
+	{
+		Objects.requireNonNull(left);
+		Objects.requireNonNull(right);
+	}
+
+	@Override
+	public TLeft getLeft()
+	{
+		return left;
+	}
+
+	@Override
+	public ImmutablePair<TLeft, TRight> setLeft(TLeft left)
+	{
+		return new RecordPair<TLeft, TRight>(left, right);
+	}
+
+	@Override
+	public TRight getRight()
+	{
+		return right;
+	}
+
+	@Override
+	public ImmutablePair<TLeft, TRight> setRight(TRight right)
+	{
+		return new RecordPair<TLeft, TRight>(left, right);
+	}
+}
@@ -0,0 +1,46 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values.records;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+
+/**
+ * Record implementation of the externalizable position example. Records are immutable so they can be written but not read as externalizable objects.
+ *
+ * @param x X coordinate.
+ * @param y Y coordinate.
+ *
+ * @author mmc
+ */
+record RecordPosition(int x, int y) implements ExternalizablePosition
+{
+	@Override
+	public int getX()
+	{
+		return x;
+	}
+
+	@Override
+	public int getY()
+	{
+		return y;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException
+	{
+		out.writeInt(x);
+		out.writeInt(y);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in)
+	{
+		throw new UnsupportedOperationException("Records can not be read as externalizable objects");
+	}
+}
@@ -0,0 +1,42 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.benchmarks.values.records;
+
+import com.fortyoneconcepts.valjogen.benchmarks.values.ValueFactory;
+import com.fortyoneconcepts.valjogen.examples.ComparableName;
+import com.fortyoneconcepts.valjogen.examples.ExternalizablePosition;
+import com.fortyoneconcepts.valjogen.examples.ImmutablePair;
+import com.fortyoneconcepts.valjogen.examples.MutablePair;
+
+/**
+ * Creates record value objects. Only compiled with JDK 16 or later and created by reflection from {@link ValueFactory#forImplementation(String)}.
+ *
+ * @author mmc
+ */
+public final class RecordValueFactory implements ValueFactory
+{
+	@Override
+	public ImmutablePair<String, Integer> createPair(String left, Integer right)
+	{
+		return new RecordPair<String, Integer>(left, right);
+	}
+
+	@Override
+	public MutablePair<String, Integer> createMutablePair(String left, Integer right)
+	{
+		throw new UnsupportedOperationException("Records can not be mutable");
+	}
+
+	@Override
+	public ComparableName createName(String firstName, String lastName)
+	{
+		return new RecordName(firstName, lastName);
+	}
+
+	@Override
+	public ExternalizablePosition createPosition(int x, int y)
+	{
+		return new RecordPosition(x, y);
+	}
+}
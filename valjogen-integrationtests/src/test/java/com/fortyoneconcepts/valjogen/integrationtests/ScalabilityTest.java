@@ -0,0 +1,311 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtests;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+
+import static com.fortyoneconcepts.valjogen.integrationtests.util.TestSupport.*;
+
+/**
+ * Guards against accidental super-linear behaviour by running the annotation processor on generated interfaces of increasing size and checking
+ * how fast the time spend building models and rendering grows. The growth between the smallest measured size and the largest size is expressed as
+ * the exponent k in time ~ size^k, so linear behaviour gives about 1 and quadratic behaviour about 2. Sizes in between are only run to check that
+ * they work, as phases taking a few milliseconds are too noisy to compare sizes that are close.
+ *
+ * Each size is measured for a mutable interface with setters and for an immutable interface with "with" methods that return a modified copy, as
+ * the templates of these use the other members of the class for every property. A "with" method passes every member to the constructor, so the generated
+ * source itself grows quadratically with the number of properties. Render time is therefore checked against the size of the generated source while model
+ * build time is checked against the number of properties or the depth of inheritance.
+ *
+ * The maximum exponent accepted can be set with the system property "valjogen.scaling.maxexponent" (default 1.5). Times are taken from the
+ * timing report of the processor and the best of a few runs is used to reduce noise.
+ *
+ * As the test takes minutes and depends on the load of the machine, it is skipped unless the system property "valjogen.scaling" is true
+ * (i.e. mvn test -Dvaljogen.scaling=true).
+ *
+ * @author mmc
+ */
+public class ScalabilityTest
+{
+	private static final String packageName = "com.fortyoneconcepts.valjogen.scalability";
+	private static final String reportName = "valjogen-timing.csv";
+
+	private static final int[] propertyCounts = { 10, 100, 1000, 5000 };
+	// With 5000 properties the generated source of an immutable interface would be some hundred megabytes.
+	private static final int[] immutablePropertyCounts = { 10, 100, 1000 };
+	private static final int[] inheritanceDepths = { 1, 5, 10, 20 };
+	private static final int propertiesPerLevel = 50;
+
+	private static final int repetitions = 3;
+	private static final long compilerStackSize = 64*1024*1024;
+
+	// Sizes smaller than this are dominated by constant overhead and are only run to check that they work.
+	private static final int minMeasuredPropertyCount = 100;
+	private static final int minMeasuredDepth = 5;
+
+	private static final String[] propertyTypes = { "int", "String", "long", "java.util.List<String>", "Object", "double[]" };
+
+	private static double maxExponent;
+	private static Path workPath;
+
+	/**
+	 * Best times seen for a compilation of one annotated interface.
+	 */
+	private static final class Measurement
+	{
+		private final int size;
+		private long modelNanos = Long.MAX_VALUE;
+		private long renderNanos = Long.MAX_VALUE;
+		private long outputSize;
+
+		private Measurement(int size)
+		{
+			this.size=size;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "size "+size+": model "+modelNanos/1000+"us, render "+renderNanos/1000+"us of "+outputSize+" bytes";
+		}
+	}
+
+	@BeforeClass
+	public static void setup() throws Exception
+	{
+		Assume.assumeTrue("Scalability test not enabled by -Dvaljogen.scaling=true", Boolean.getBoolean("valjogen.scaling"));
+		Assume.assumeTrue("No system java compiler available", ToolProvider.getSystemJavaCompiler()!=null);
+
+		maxExponent = Double.parseDouble(System.getProperty("valjogen.scaling.maxexponent", "1.5"));
+		workPath = Files.createDirectories(getProjectRootPath().resolve("target").resolve("scalability"));
+
+		// Warm up so the smaller sizes are not dominated by class loading and JIT compilation.
+		measure("warmup", 1000, 0, false);
+		measure("immutablewarmup", 500, 0, true);
+		measure("depthwarmup", 10, 10, false);
+	}
+
+	@Test
+	public void testPropertyCountScaling() throws Exception
+	{
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (int propertyCount : propertyCounts)
+			measurements.add(measure("properties", propertyCount, 0, false));
+
+		assertScaling(measurements, minMeasuredPropertyCount);
+	}
+
+	@Test
+	public void testImmutablePropertyCountScaling() throws Exception
+	{
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (int propertyCount : immutablePropertyCounts)
+			measurements.add(measure("immutableproperties", propertyCount, 0, true));
+
+		assertScaling(measurements, minMeasuredPropertyCount);
+	}
+
+	@Test
+	public void testInheritanceDepthScaling() throws Exception
+	{
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (int depth : inheritanceDepths)
+			measurements.add(measure("depth", depth, depth, false));
+
+		assertScaling(measurements, minMeasuredDepth);
+	}
+
+	@Test
+	public void testImmutableInheritanceDepthScaling() throws Exception
+	{
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (int depth : inheritanceDepths)
+			measurements.add(measure("immutabledepth", depth, depth, true));
+
+		assertScaling(measurements, minMeasuredDepth);
+	}
+
+	private static void assertScaling(List<Measurement> measurements, int minMeasuredSize)
+	{
+		Measurement small = measurements.stream().filter(m -> m.size>=minMeasuredSize).findFirst().get();
+		Measurement large = measurements.get(measurements.size()-1);
+
+		String description = small+" vs "+large;
+		assertExponent("model build", small.size, small.modelNanos, large.size, large.modelNanos, description);
+		assertExponent("render", small.outputSize, small.renderNanos, large.outputSize, large.renderNanos, description);
+	}
+
+	private static void assertExponent(String phase, long smallSize, long smallNanos, long largeSize, long largeNanos, String description)
+	{
+		double exponent = Math.log((double)Math.max(largeNanos, 1)/Math.max(smallNanos, 1))/Math.log((double)largeSize/smallSize);
+		Assert.assertTrue("Time to "+phase+" grows as size^"+String.format("%.2f", exponent)+" which exceeds size^"+maxExponent+" ("+description+")", exponent<=maxExponent);
+	}
+
+	/**
+	 * Run the processor on an annotated interface of the specified size a few times and keep the best times.
+	 *
+	 * @param name Name of the kind of test.
+	 * @param size Number of properties or, if depth is positive, depth of inheritance.
+	 * @param depth Depth of inheritance or 0 for a single interface with size properties.
+	 * @param immutable True for "with" methods that return a modified copy instead of setters.
+	 */
+	private static Measurement measure(String name, int size, int depth, boolean immutable) throws Exception
+	{
+		Path testPath = workPath.resolve(name+size);
+		List<Path> sources = depth>0 ? writeInterfaceHierarchy(testPath.resolve("src"), depth, immutable) : writeWideInterface(testPath.resolve("src"), size, immutable);
+
+		Measurement measurement = new Measurement(size);
+		for (int i=0; i<repetitions; ++i)
+		{
+			// Large outputs of earlier runs would otherwise be collected in the middle of the short phases measured.
+			System.gc();
+
+			Path outputPath = testPath.resolve("run"+i);
+			List<String> columns = runProcessor(outputPath, sources);
+			measurement.modelNanos = Math.min(measurement.modelNanos, Long.parseLong(columns.get(4)));
+			measurement.renderNanos = Math.min(measurement.renderNanos, Long.parseLong(columns.get(5)));
+			measurement.outputSize = getGeneratedSize(outputPath.resolve("generated-sources"));
+		}
+		return measurement;
+	}
+
+	/**
+	 * Run the processor in this JVM and return the columns of the single line of the timing report.
+	 */
+	private static List<String> runProcessor(Path outputPath, List<Path> sources) throws Exception
+	{
+		Path sourceOutputPath = Files.createDirectories(outputPath.resolve("generated-sources"));
+		Path classOutputPath = Files.createDirectories(outputPath.resolve("classes"));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8))
+		{
+			List<String> options = Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path"),
+					                             "-s", sourceOutputPath.toString(), "-d", classOutputPath.toString(),
+					                             "-A"+ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.TIMINGREPORT+"="+reportName,
+					                             "-A"+ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.SOURCEPATH+"="+sources.get(0).getParent().toString());
+
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(toFiles(sources)));
+			task.setProcessors(Collections.singletonList(new AnnotationProcessor()));
+
+			// Generated equals and hashCode methods for the largest interfaces have expressions too deep for javac with a default stack size.
+			boolean[] success = new boolean[1];
+			Thread compilerThread = new Thread(null, () -> success[0]=task.call(), "scalability-javac", compilerStackSize);
+			compilerThread.start();
+			compilerThread.join();
+
+			Assert.assertTrue(diagnostics.getDiagnostics().toString(), success[0]);
+		}
+
+		List<String> lines = Files.readAllLines(classOutputPath.resolve(reportName), StandardCharsets.UTF_8);
+		Assert.assertEquals(lines.toString(), 2, lines.size());
+		return Arrays.asList(lines.get(1).split(","));
+	}
+
+	private static long getGeneratedSize(Path sourceOutputPath) throws Exception
+	{
+		try (Stream<Path> files = Files.walk(sourceOutputPath))
+		{
+			return files.filter(f -> f.toString().endsWith(".java")).mapToLong(f -> f.toFile().length()).sum();
+		}
+	}
+
+	/**
+	 * Write an annotated interface with the specified number of getter and setter (or "with" method) pairs.
+	 */
+	private static List<Path> writeWideInterface(Path sourcePath, int propertyCount, boolean immutable) throws Exception
+	{
+		Path packagePath = Files.createDirectories(sourcePath.resolve(packageName.replace(".", File.separator)));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(packageName).append(";\n\n");
+		appendAnnotations(sb, immutable);
+		sb.append("public interface WideInterface\n{\n");
+		appendProperties(sb, "value", propertyCount, immutable ? "WideInterface" : null);
+		sb.append("}\n");
+
+		return Collections.singletonList(Files.write(packagePath.resolve("WideInterface.java"), sb.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Write an annotated interface that inherit a chain of interfaces with the specified depth, each with a fixed number of properties.
+	 */
+	private static List<Path> writeInterfaceHierarchy(Path sourcePath, int depth, boolean immutable) throws Exception
+	{
+		Path packagePath = Files.createDirectories(sourcePath.resolve(packageName.replace(".", File.separator)));
+		List<Path> sources = new ArrayList<Path>();
+
+		for (int level=0; level<depth; ++level)
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append("package ").append(packageName).append(";\n\n");
+			if (level==depth-1)
+				appendAnnotations(sb, immutable);
+			sb.append("public interface Level").append(level).append(level>0 ? " extends Level"+(level-1) : "").append("\n{\n");
+			appendProperties(sb, "level"+level+"x", propertiesPerLevel, immutable ? "Level"+level : null);
+			sb.append("}\n");
+
+			sources.add(Files.write(packagePath.resolve("Level"+level+".java"), sb.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+
+		// Put the annotated interface first so its folder is used as source path.
+		Collections.reverse(sources);
+		return sources;
+	}
+
+	private static void appendAnnotations(StringBuilder sb, boolean immutable)
+	{
+		sb.append("@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n");
+		if (immutable)
+			sb.append("@com.fortyoneconcepts.valjogen.annotations.VALJOConfigure(setterPrefixes=\"with\")\n");
+	}
+
+	/**
+	 * Append getters and setters or, if an interface name is specified, getters and "with" methods returning the interface.
+	 */
+	private static void appendProperties(StringBuilder sb, String prefix, int propertyCount, String immutableInterfaceName)
+	{
+		for (int p=0; p<propertyCount; ++p)
+		{
+			String type = propertyTypes[p%propertyTypes.length];
+			String name = Character.toUpperCase(prefix.charAt(0))+prefix.substring(1)+p;
+			sb.append("  ").append(type).append(" get").append(name).append("();\n");
+			if (immutableInterfaceName!=null)
+				sb.append("  ").append(immutableInterfaceName).append(" with").append(name).append("(").append(type).append(" value);\n");
+			else sb.append("  void set").append(name).append("(").append(type).append(" value);\n");
+		}
+	}
+
+	private static List<File> toFiles(List<Path> paths)
+	{
+		List<File> files = new ArrayList<File>();
+		for (Path path : paths)
+			files.add(path.toFile());
+		return files;
+	}
+}
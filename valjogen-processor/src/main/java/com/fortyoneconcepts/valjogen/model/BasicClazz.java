@@ -8,10 +8,15 @@ import static com.fortyoneconcepts.valjogen.model.util.NamesUtil.getPackageFromQ
 import static com.fortyoneconcepts.valjogen.model.util.NamesUtil.matchingOverloads;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.fortyoneconcepts.valjogen.model.util.IndentedPrintWriter;
@@ -19,6 +24,12 @@ import com.fortyoneconcepts.valjogen.model.util.IndentedPrintWriter;
 /**
  * Detailed information about a java "class" such as members and methods. Base class for Clazz which is the class type used for generation of code.
  *
+ * The members and methods of existing classes may be resolved on first access (see {@link #initContent(Supplier, Supplier, EnumSet, List)}). Resolving is
+ * not multi-thread safe and must be done by the thread that builds the model. Use {@link #resolveContent()} before the model is used by other threads.
+ *
+ * Queries derived from the content (like members by name and constructors) are answered from an index that is built on first use once the content
+ * is initialized, as templates repeat these queries for every member or method.
+ *
  * @author mmc
  */
 public class BasicClazz extends ObjectType implements Definition {
@@ -29,11 +40,57 @@ public class BasicClazz extends ObjectType implements Definition {
 
 	protected List<Member> members;
 	protected List<Method> methods;
+	private Supplier<List<Member>> membersResolver;
+	private Supplier<List<Method>> methodsResolver;
 	protected EnumSet<Modifier> declaredModifiers;
 	protected List<Annotation> annotations;
 
 	private boolean initializedContent;
 
+	private volatile ContentIndex contentIndex;
+	private volatile List<Member> membersIncludingInherited;
+
+	// Each flag is computed on its own when first used, so a type that can not answer one query does not break the others.
+	private volatile Boolean primitiveMembers;
+	private volatile Boolean arrayMembers;
+
+	/**
+	 * Immutable index of the content of an initialized class.
+	 */
+	private static final class ContentIndex
+	{
+		private final Map<String, Member> membersByName;
+		private final Map<String, Method> methodsByName;
+		private final Map<Member, Integer> memberPositions;
+		private final List<Constructor> constructors;
+
+		private ContentIndex(List<Member> members, List<Method> methods)
+		{
+			Map<String, Member> membersByName = new HashMap<String, Member>();
+			Map<Member, Integer> memberPositions = new IdentityHashMap<Member, Integer>();
+			for (int i=0; i<members.size(); ++i)
+			{
+				Member member = members.get(i);
+				membersByName.putIfAbsent(member.getName(), member);
+				memberPositions.putIfAbsent(member, i);
+			}
+
+			Map<String, Method> methodsByName = new HashMap<String, Method>();
+			List<Constructor> constructors = new ArrayList<Constructor>();
+			for (Method method : methods)
+			{
+				methodsByName.putIfAbsent(method.getName(), method);
+				if (method.isConstructor())
+					constructors.add((Constructor)method);
+			}
+
+			this.membersByName=membersByName;
+			this.methodsByName=methodsByName;
+			this.memberPositions=memberPositions;
+			this.constructors=Collections.unmodifiableList(constructors);
+		}
+	}
+
 	public BasicClazz(BasicClazz optClazzUsingType, Configuration configuration, String qualifiedProtoTypicalTypeName, Function<BasicClazz, HelperTypes> helperFactoryMethod)
 	{
 		this(optClazzUsingType, configuration, qualifiedProtoTypicalTypeName, helperFactoryMethod, new ArrayList<Member>(), new ArrayList<Method>(), EnumSet.noneOf(Modifier.class), new ArrayList<Annotation>());
@@ -58,6 +115,10 @@ public class BasicClazz extends ObjectType implements Definition {
 	{
 		try {
 			BasicClazz result = new BasicClazz(clazzUsingType, configuration, qualifiedProtoTypicalTypeName, (c) -> helperTypes, members, methods, declaredModifiers, annotations);
+			if (!isContentResolved()) {
+				result.membersResolver=this::getMembers;
+				result.methodsResolver=this::getMethods;
+			}
 			result.baseClazzType=baseClazzType;
 			result.interfaceTypes=interfaceTypes;
 			result.superTypesWithAscendants=superTypesWithAscendants;
@@ -95,10 +156,50 @@ public class BasicClazz extends ObjectType implements Definition {
         this.methods=Objects.requireNonNull(methods);
         this.declaredModifiers=Objects.requireNonNull(declaredModifiers);
         this.annotations=Objects.requireNonNull(annotations);
+        this.contentIndex=null;
+        this.membersIncludingInherited=null;
+        this.primitiveMembers=null;
+        this.arrayMembers=null;
 
         initializedContent=true;
 	}
 
+	/**
+     * Nb. Post-constructor like {@link #initContent(List, List, EnumSet, List)} except that members and methods are resolved by the specified suppliers when first
+     * accessed. Must be called only once.
+     *
+	 * @param membersResolver Resolves the member variables for class.
+	 * @param methodsResolver Resolves the methods for class.
+	 * @param declaredModifiers declared clazz modifiers.
+	 * @param annotations Annotations for the clazz.
+	 */
+	public void initContent(Supplier<List<Member>> membersResolver, Supplier<List<Method>> methodsResolver, EnumSet<Modifier> declaredModifiers, List<Annotation> annotations)
+	{
+		initContent(Collections.emptyList(), Collections.emptyList(), declaredModifiers, annotations);
+
+		this.membersResolver=Objects.requireNonNull(membersResolver);
+		this.methodsResolver=Objects.requireNonNull(methodsResolver);
+	}
+
+	/**
+	 * Return true if members and methods are known and false if they will be resolved when first accessed.
+	 *
+	 * @return True if resolved.
+	 */
+	public boolean isContentResolved()
+	{
+		return membersResolver==null && methodsResolver==null;
+	}
+
+	/**
+	 * Resolve members and methods now if they have not been accessed yet.
+	 */
+	public void resolveContent()
+	{
+		getMembers();
+		getMethods();
+	}
+
 	@Override
 	public Configuration getConfiguration() {
 		return configuration;
@@ -159,7 +260,11 @@ public class BasicClazz extends ObjectType implements Definition {
 
 	public Member tryGetMember(String name)
 	{
-		return getMembers().stream().filter(m -> m.getName().equals(name)).findFirst().orElse(null);
+		ContentIndex index = getContentIndex();
+		if (index==null)
+			return getMembers().stream().filter(m -> m.getName().equals(name)).findFirst().orElse(null);
+
+		return index.membersByName.get(name);
 	}
 
 	public Member tryGetMemberIncludingInherited(String name)
@@ -169,7 +274,63 @@ public class BasicClazz extends ObjectType implements Definition {
 
 	public Method tryGetMethod(String name)
 	{
-		return getMethods().stream().filter(m -> m.getName().equals(name)).findFirst().orElse(null);
+		ContentIndex index = getContentIndex();
+		if (index==null)
+			return getMethods().stream().filter(m -> m.getName().equals(name)).findFirst().orElse(null);
+
+		return index.methodsByName.get(name);
+	}
+
+	/**
+	 * Return the position of a member in the list of members.
+	 *
+	 * @param member The member to find.
+	 *
+	 * @return The index of the member or -1 if not a member of this class.
+	 */
+	int indexOfMember(Member member)
+	{
+		ContentIndex index = getContentIndex();
+		if (index==null) {
+			List<Member> members = getMembers();
+			for (int i=0; i<members.size(); ++i)
+				if (members.get(i)==member)
+					return i;
+			return -1;
+		}
+
+		return index.memberPositions.getOrDefault(member, -1);
+	}
+
+	@Override
+	public boolean hasPrimitiveMembers()
+	{
+		Boolean result = primitiveMembers;
+		if (result==null) {
+			result = super.hasPrimitiveMembers();
+			if (initialized())
+				primitiveMembers = result;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean hasArrayMembers()
+	{
+		Boolean result = arrayMembers;
+		if (result==null) {
+			result = super.hasArrayMembers();
+			if (initialized())
+				arrayMembers = result;
+		}
+		return result;
+	}
+
+	@Override
+	public List<Constructor> getConstructors()
+	{
+		ContentIndex index = getContentIndex();
+		return index!=null ? index.constructors : super.getConstructors();
 	}
 
 	public boolean isMutable()
@@ -181,21 +342,48 @@ public class BasicClazz extends ObjectType implements Definition {
 	@Override
 	public List<Member> getMembers() {
 		assert initialized() : "Class initialization missing";
+		if (membersResolver!=null) {
+			members=Objects.requireNonNull(membersResolver.get());
+			membersResolver=null;
+		}
 		return members;
 	}
 
 	@Override
 	public List<Method> getMethods() {
 		assert initialized() : "Class initialization missing";
+		if (methodsResolver!=null) {
+			methods=Objects.requireNonNull(methodsResolver.get());
+			methodsResolver=null;
+		}
 		return methods;
 	}
 
 	public List<Member> getMembersIncludingInherited() {
 		assert initialized() : "Class initialization missing";
-		List<Member> allMembers = new ArrayList<Member>();
-		allMembers.addAll(getBaseClazzType().getMembers());
-		allMembers.addAll(getMembers());
-		return allMembers;
+		List<Member> result = membersIncludingInherited;
+		if (result==null) {
+			List<Member> allMembers = new ArrayList<Member>();
+			allMembers.addAll(getBaseClazzType().getMembers());
+			allMembers.addAll(getMembers());
+			result = Collections.unmodifiableList(allMembers);
+			if (initialized())
+				membersIncludingInherited = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Return the index of the content, building it on first use.
+	 *
+	 * @return The index or null if the content is not initialized yet.
+	 */
+	private ContentIndex getContentIndex()
+	{
+		ContentIndex index = contentIndex;
+		if (index==null && initialized())
+			contentIndex = index = new ContentIndex(getMembers(), getMethods());
+		return index;
 	}
 
 	public boolean hasFactoryMethods()
@@ -287,6 +475,11 @@ public class BasicClazz extends ObjectType implements Definition {
 			  writer.println("superTypesWithAscendants=["+superTypesWithAscendants.stream().map(t -> t.getQualifiedName()).collect(Collectors.joining(", "))+"]");
 			}
 
+			if (!isContentResolved()) {
+			  writer.ensureNewLine();
+			  writer.println("members and methods not resolved");
+			}
+
 			if (members.size()>0) {
 			  writer.ensureNewLine();
 			  writer.print("members= [");
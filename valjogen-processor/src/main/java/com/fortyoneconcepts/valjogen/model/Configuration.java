@@ -5,11 +5,15 @@ package com.fortyoneconcepts.valjogen.model;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.lang.model.SourceVersion;
@@ -20,6 +24,7 @@ import com.fortyoneconcepts.valjogen.annotations.types.*;
 import com.fortyoneconcepts.valjogen.model.util.AnnotationProxyBuilder;
 import com.fortyoneconcepts.valjogen.model.util.KeyValuePair;
 import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
+import com.fortyoneconcepts.valjogen.model.util.OverloadPatternIndex;
 
 /**
  * Contains methods that return the effective configuration taking processor
@@ -30,6 +35,11 @@ import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
  * @author mmc
  */
 public class Configuration implements ConfigurationOptionKeys {
+	private static final Pattern unknownMacroPattern = Pattern.compile("[^\\$]*\\$\\(.*");
+
+	// Settings file read by the first configuration when the warm cache is enabled, so it is only read once until cleared by clearConfigFileOptions().
+	private static volatile Properties configFileOptions;
+
 	private final String sourceElementName;
 	private final VALJOGenerate generateAnnotation;
 	private final VALJOConfigure configureAnnotation;
@@ -38,6 +48,12 @@ public class Configuration implements ConfigurationOptionKeys {
 	private final Date processorExecutionDate;
 	private final SourceVersion targetSourceVersion;
 
+	// Values are resolved once when first used as the configuration does not change. Nb. Configurations may be used by several threads.
+	private final Map<String, Optional<String>> resolvedMacroValues = new ConcurrentHashMap<String, Optional<String>>();
+	private volatile List<KeyValuePair<String, String>> resolvedMethodAnnotations;
+	private volatile List<KeyValuePair<String, String>> resolvedMemberAnnotations;
+	private volatile OverloadPatternIndex<String> methodAnnotationsIndex;
+
 	/**
 	 * This decl only shows the custom macros. In addition system properties
 	 * will be added as macros too.
@@ -48,7 +64,7 @@ public class Configuration implements ConfigurationOptionKeys {
 			put(ConfigurationMacros.NotApplicableMacro, () -> null);
 			put(ConfigurationMacros.GeneratedClassNameMacro,() -> ThisReference.class.getName()); // Will be replaced with real class name later.
 			put(ConfigurationMacros.MasterInterfaceMacro, () -> getSourceElementName());
-			put(ConfigurationMacros.ExecutionDateMacro,	() -> String.format("%tFT%<tRZ", getExecutionDate()));
+			put(ConfigurationMacros.ExecutionDateMacro,	() -> formatExecutionDate(getExecutionDate()));
 		}
 	};
 
@@ -65,16 +81,19 @@ public class Configuration implements ConfigurationOptionKeys {
 		this.configureAnnotation = Objects.requireNonNull(configureAnnotation);
 		this.optDefaultLocale = optDefaultLocale;
 		this.options = new HashMap<String, String>(Objects.requireNonNull(options));
-		this.processorExecutionDate = new Date();
 
 		// Merge user options with config file options if there are any (with
-		// user options taking precedence).
-		Properties fileOptions = getConfigFileOptions();
+		// user options taking precedence). Whether the file is cached between
+		// configurations is a processor option, so it is checked before merging.
+		Properties fileOptions = getWarmCacheSize() > 0 ? getConfigFileOptions() : loadConfigFileOptions();
 		for (Entry<Object, Object> fileOption : fileOptions.entrySet()) {
 			this.options.putIfAbsent((String) fileOption.getKey(),
 					(String) fileOption.getValue());
 		}
 
+		long outputEpoch = getOutputEpoch();
+		this.processorExecutionDate = outputEpoch>=0 ? new Date(outputEpoch*1000) : new Date();
+
 		// All system properties should work as macros too.
 		for (Entry<Object, Object> systemProperty : System.getProperties()
 				.entrySet()) {
@@ -124,12 +143,31 @@ public class Configuration implements ConfigurationOptionKeys {
 
 	/**
 	 * Return a property object with deserialized configuration file options (if
-	 * the file exist).
+	 * the file exist) as read by the first configuration with the warm cache
+	 * enabled.
 	 *
 	 * @return The properties from the configuration file or empty object
 	 *         otherwise.
 	 */
 	private final Properties getConfigFileOptions() {
+		Properties properties = configFileOptions;
+		if (properties == null) {
+			properties = configFileOptions = loadConfigFileOptions();
+		}
+		return properties;
+	}
+
+	/**
+	 * Forget the configuration file options read so far, so they are read
+	 * again by the next configuration. As the options are kept as long as the
+	 * processor classes when the warm cache is enabled, this is needed if the
+	 * configuration file may have changed between compilations in the same JVM.
+	 */
+	public static void clearConfigFileOptions() {
+		configFileOptions = null;
+	}
+
+	private final Properties loadConfigFileOptions() {
 		Properties properties = new Properties();
 
 		try (InputStream in = getClass().getResourceAsStream(
@@ -327,9 +365,26 @@ public class Configuration implements ConfigurationOptionKeys {
 	}
 
 	public List<KeyValuePair<String, String>> getMethodAnnotations(Predicate<String> overloadNameFilter) {
-		String[] pairs = getStringArrayValue(methodAnnotations,	configureAnnotation.methodAnnotations());
-		List<KeyValuePair<String, String>> result = pairsToMap(pairs, overloadNameFilter);
-		return result;
+		List<KeyValuePair<String, String>> pairs = resolvedMethodAnnotations;
+		if (pairs == null) {
+			pairs = resolvedMethodAnnotations = pairsToMap(getStringArrayValue(methodAnnotations, configureAnnotation.methodAnnotations()), p -> true);
+		}
+		return filterPairs(pairs, overloadNameFilter);
+	}
+
+	/**
+	 * Find the configured method annotations for a method using overload name patterns that are only parsed once.
+	 *
+	 * @param overloadName The overload name of the method.
+	 *
+	 * @return The code of the matching annotations in configured order.
+	 */
+	public List<String> findMethodAnnotations(String overloadName) {
+		OverloadPatternIndex<String> index = methodAnnotationsIndex;
+		if (index == null) {
+			index = methodAnnotationsIndex = new OverloadPatternIndex<String>(getMethodAnnotations(), true);
+		}
+		return index.get(overloadName);
 	}
 
 	public List<KeyValuePair<String, String>> getMemberAnnotations() {
@@ -337,9 +392,11 @@ public class Configuration implements ConfigurationOptionKeys {
 	}
 
 	public List<KeyValuePair<String, String>> getMemberAnnotations(Predicate<String> overloadNameFilter) {
-		String[] pairs = getStringArrayValue(memberAnnotations,	configureAnnotation.memberAnnotations());
-		List<KeyValuePair<String, String>> result = pairsToMap(pairs, overloadNameFilter);
-		return result;
+		List<KeyValuePair<String, String>> pairs = resolvedMemberAnnotations;
+		if (pairs == null) {
+			pairs = resolvedMemberAnnotations = pairsToMap(getStringArrayValue(memberAnnotations, configureAnnotation.memberAnnotations()), p -> true);
+		}
+		return filterPairs(pairs, overloadNameFilter);
 	}
 
 	public boolean isWarningAboutSynthesisedNamesEnabled() {
@@ -370,6 +427,107 @@ public class Configuration implements ConfigurationOptionKeys {
 		return getStringValue(LOGFILE);
 	}
 
+	public String getTimingReport() {
+		return getStringValue(TIMINGREPORT);
+	}
+
+	public int getRenderThreads() {
+		return getIntValue(RENDERTHREADS, 0);
+	}
+
+	public int getMaxInFlight() {
+		return getIntValue(MAXINFLIGHT, 0);
+	}
+
+	public String getCacheDir() {
+		return getStringValue(CACHEDIR);
+	}
+
+	public int getWarmCacheSize() {
+		return getIntValue(WARMCACHE, 0);
+	}
+
+	public boolean isDependencyFilesEnabled() {
+		return getBooleanValue(DEPENDENCYFILES, false);
+	}
+
+	public long getOutputEpoch() {
+		String value = getStringValue(OUTPUTEPOCH);
+		if (value == null || value.trim().length() == 0)
+			value = System.getenv("SOURCE_DATE_EPOCH");
+		if (value == null || value.trim().length() == 0)
+			return -1;
+
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option value " + value
+					+ " for key " + OUTPUTEPOCH + " must be an integer value", e);
+		}
+	}
+
+	/**
+	 * Return the values of all settings that affect the generated source, so a change in any of them can be detected (as done by the generation cache).
+	 * Settings that only affect how the processor runs (like logging, threads, caching and paths) are left out. Settings added to this class must
+	 * also be added here if they affect the generated source.
+	 *
+	 * @return Names and values of the settings in a fixed order. Values may be arrays.
+	 */
+	public Map<String, Object> getOutputValues() {
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		values.put("sourceElementName", getSourceElementName());
+		values.put("targetSourceVersion", getTargetSourceVersion());
+		values.put("executionDate", formatExecutionDate(getExecutionDate()));
+		values.put("outputEpoch", getOutputEpoch());
+		values.put("locale", getLocale());
+		values.put("lineWidth", getLineWidth());
+		values.put("clazzModifiers", getClazzModifiers());
+		values.put("mutability", getMutability());
+		values.put("dataConversion", getDataConversion());
+		values.put("finalMembersAndParametersEnabled", isFinalMembersAndParametersEnabled());
+		values.put("finalMethodsEnabled", isFinalMethodsEnabled());
+		values.put("staticFactoryMethodEnabled", isStaticFactoryMethodEnabled());
+		values.put("ensureNotNullEnabled", isEnsureNotNullEnabled());
+		values.put("synchronizedAccessEnabled", isSynchronizedAccessEnabled());
+		values.put("malformedPropertiesIgnored", isMalformedPropertiesIgnored());
+		values.put("package", getPackage());
+		values.put("name", getName());
+		values.put("importClasses", getImportClasses());
+		values.put("extraInterfaces", getExtraInterfaces());
+		values.put("getterPrefixes", getGetterPrefixes());
+		values.put("setterPrefixes", getSetterPrefixes());
+		values.put("thisAsImmutableSetterReturnTypeEnabled", isThisAsImmutableSetterReturnTypeEnabled());
+		values.put("baseClazzName", getBaseClazzName());
+		values.put("baseClazzConstructors", getBaseClazzConstructors());
+		values.put("suggestedVariablesPrefix", getSuggestedVariablesPrefix());
+		values.put("serialVersionUID", getSerialVersionUID());
+		values.put("serialVersionUIDSpecified", getSerialVersionUIDSpecified());
+		values.put("equalsEnabled", isEqualsEnabled());
+		values.put("hashEnabled", isHashEnabled());
+		values.put("comparableMembers", getComparableMembers());
+		values.put("toStringEnabled", isToStringEnabled());
+		values.put("insertInheritDocOnMethodsEnabled", isInsertInheritDocOnMethodsEnabled());
+		values.put("headerFileName", getHeaderFileName());
+		values.put("customJavaTemplateFileName", getCustomJavaTemplateFileName());
+		values.put("clazzJavaDoc", getClazzJavaDoc());
+		values.put("clazzAnnotations", getClazzAnnotations());
+		values.put("methodAnnotations", getMethodAnnotations());
+		values.put("memberAnnotations", getMemberAnnotations());
+		values.put("comment", getComment());
+		return values;
+	}
+
+	/**
+	 * Format a date as used by the $(ExecutionDate) macro. The date is always formatted in UTC so the result does not depend on the time zone of the JVM.
+	 *
+	 * @param date The date to format.
+	 *
+	 * @return Date formatted as yyyy-MM-ddTHH:mmZ.
+	 */
+	public static String formatExecutionDate(Date date) {
+		return DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'", Locale.ROOT).withZone(ZoneOffset.UTC).format(date.toInstant());
+	}
+
 	// ---- Internal helpers -----
 
 	private String preformMagicReplacements(String rawValue)
@@ -377,6 +535,15 @@ public class Configuration implements ConfigurationOptionKeys {
 		if (rawValue == null)
 			return null;
 
+		// All macros start with the macro prefix so values without it are returned as is.
+		if (!rawValue.contains(ConfigurationMacros.MacroPrefix))
+			return rawValue;
+
+		return resolvedMacroValues.computeIfAbsent(rawValue, v -> Optional.ofNullable(doPreformMagicReplacements(v))).orElse(null);
+	}
+
+	private String doPreformMagicReplacements(String rawValue)
+	{
 		String value = rawValue;
 		for (Map.Entry<String, Supplier<String>> entry : macros.entrySet()) {
 			String key = entry.getKey();
@@ -388,7 +555,7 @@ public class Configuration implements ConfigurationOptionKeys {
 				value = value.replace(key, replacement);
 		}
 
-		if (value != null && value.matches("[^\\$]*\\$\\(.*"))
+		if (value != null && unknownMacroPattern.matcher(value).matches())
 			throw new IllegalArgumentException("Unknown macros in " + rawValue);
 
 		return value;
@@ -526,6 +693,18 @@ public class Configuration implements ConfigurationOptionKeys {
 				result.add(new KeyValuePair<String,String>(key, value));
 		}
 
+		if (result.isEmpty())
+			return Collections.emptyList();
+
+		return Collections.unmodifiableList(result);
+	}
+
+	private List<KeyValuePair<String, String>> filterPairs(List<KeyValuePair<String, String>> pairs, Predicate<String> keyFilter)
+	{
+		List<KeyValuePair<String, String>> result = pairs.stream().filter(p -> keyFilter.test(p.getKey())).collect(Collectors.toList());
+		if (result.size() == pairs.size())
+			return pairs;
+
 		if (result.isEmpty())
 			return Collections.emptyList();
 
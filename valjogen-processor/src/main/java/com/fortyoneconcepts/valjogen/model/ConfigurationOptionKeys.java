@@ -216,4 +216,53 @@ public interface ConfigurationOptionKeys
 	 * Path must be absolute and writeable.
 	 */
 	 public static String LOGFILE = "LOGFILE";
+
+	 /**
+	 * Name of a resource in the class output where a report with the time spend for each interface and processing phase is written at the end of
+	 * the compilation. The report is written as JSON if the name ends with ".json" and as CSV otherwise. Differently from most other options, this
+	 * is an annotation processor option only (no annotation exist for this). Intended for finding slow interfaces - the report depends on all
+	 * interfaces so it should not be enabled for incremental builds.
+	 */
+	 public static String TIMINGREPORT = "TIMINGREPORT";
+
+	 /**
+	 * Number of worker threads used for rendering generated classes. Differently from most other options, this is an annotation processor option only (no annotation exist for this).
+	 * If not set or 0 all rendering is done one class at a time on the compiler thread. Models are always build and files always written on the compiler thread.
+	 */
+	 public static String RENDERTHREADS = "RENDERTHREADS";
+
+	 /**
+	 * Maximum number of classes that may be queued for rendering or waiting to be written when rendering with {@link ConfigurationOptionKeys#RENDERTHREADS}.
+	 * When reached, the oldest rendered classes are written before more classes are queued, so the models and output held in memory are bounded
+	 * no matter how many interfaces a module has. Differently from most other options, this is an annotation processor option only (no annotation exist for this).
+	 * If not set or 0 the maximum is twice the number of render threads.
+	 */
+	 public static String MAXINFLIGHT = "MAXINFLIGHT";
+
+	 /**
+	 * Path to a folder where generated source is cached between compilations. Differently from most other options, this is an annotation processor option only (no annotation exist for this).
+	 * Path must be absolute and writeable. If not set, nothing is cached and all classes are generated on every compilation.
+	 */
+	 public static String CACHEDIR = "CACHEDIR";
+
+	 /**
+	 * Maximum number of loaded template groups (the default templates and each custom template) that are kept in memory after a compilation, so later
+	 * compilations in the same JVM like build daemons and IDE builders do not have to load the templates again. Custom templates are reloaded when
+	 * their content change. When set, the settings file is also only read once. Differently from most other options, this is an annotation processor
+	 * option only (no annotation exist for this). If not set or 0 templates are loaded for every compilation and the settings file for every class.
+	 */
+	 public static String WARMCACHE = "WARMCACHE";
+
+	 /**
+	 * If true, a resource file META-INF/valjogen/[interface name].dependencies listing the header and template files used is written to the class output for each
+	 * generated class, so build tools can track these files. Differently from most other options, this is an annotation processor option only (no annotation exist for this).
+	 */
+	 public static String DEPENDENCYFILES = "DEPENDENCYFILES";
+
+	 /**
+	 * Seconds since 1970-01-01T00:00:00Z to use as the execution date (the $(ExecutionDate) macro that is part of the default generated annotation) instead of
+	 * the time of compilation, so generated sources are identical across builds. If not set, the SOURCE_DATE_EPOCH environment variable of reproducible
+	 * builds is used if present. Differently from most other options, this is an annotation processor option only (no annotation exist for this).
+	 */
+	 public static String OUTPUTEPOCH = "OUTPUTEPOCH";
 }
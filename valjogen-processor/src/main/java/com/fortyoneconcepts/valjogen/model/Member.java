@@ -89,39 +89,16 @@ public class Member extends DefinitionBase implements TypedModel
 	{
 		List<Member> members = clazz.getMembers();
 
-		List<Member> result = new ArrayList<Member>(members.size()-1);
-
-		Iterator<Member> iter = members.iterator();
-		boolean found = false;
-		while (iter.hasNext() && !found)
-		{
-			Member m = iter.next();
-			if (!(found=(m==this)))
-				result.add(m);
-		}
-
-		return result;
+		int index = clazz.indexOfMember(this);
+		return Collections.unmodifiableList(index>=0 ? members.subList(0, index) : members);
 	}
 
 	public List<Member> getOtherMembersAfterThis()
 	{
 		List<Member> members = clazz.getMembers();
 
-		List<Member> result = new ArrayList<Member>(members.size()-1);
-
-		Iterator<Member> iter = members.iterator();
-		boolean found = false;
-		while (iter.hasNext())
-		{
-			Member m = iter.next();
-			if (m==this) {
-				found=true;
-			} else if (found) {
-				result.add(m);
-			}
-		}
-
-		return result;
+		int index = clazz.indexOfMember(this);
+		return index>=0 ? Collections.unmodifiableList(members.subList(index+1, members.size())) : Collections.emptyList();
 	}
 
 	@Override
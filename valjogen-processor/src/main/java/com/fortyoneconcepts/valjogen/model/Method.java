@@ -6,6 +6,7 @@ package com.fortyoneconcepts.valjogen.model;
 import static com.fortyoneconcepts.valjogen.model.util.NamesUtil.*;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.fortyoneconcepts.valjogen.model.util.IndentedPrintWriter;
@@ -22,7 +23,8 @@ public class Method extends DefinitionBase
 	protected final Type declaringType;
 	protected final List<Parameter> parameters;
 	protected final List<Type> thrownTypes;
-	protected final String javaDoc;
+	protected String javaDoc;
+	private Supplier<String> javaDocResolver;
 	protected final Type returnType;
 	protected final EnumSet<Modifier> modifiers;
 	protected final String templateName;
@@ -224,9 +226,24 @@ public class Method extends DefinitionBase
 
 	public String getJavaDoc()
 	{
+		if (javaDocResolver!=null) {
+			javaDoc=Objects.requireNonNull(javaDocResolver.get());
+			javaDocResolver=null;
+		}
 		return javaDoc;
 	}
 
+	/**
+	 * Let the javadoc be resolved when first accessed instead of using the javadoc given to the constructor. Resolving is not multi-thread safe
+	 * and must be done by the thread that builds the model.
+	 *
+	 * @param javaDocResolver Called once to get the javadoc.
+	 */
+	public void initJavaDoc(Supplier<String> javaDocResolver)
+	{
+		this.javaDocResolver=Objects.requireNonNull(javaDocResolver);
+	}
+
 	public boolean isDelegating()
 	{
 		return false;
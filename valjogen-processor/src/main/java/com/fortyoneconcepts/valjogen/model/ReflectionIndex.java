@@ -0,0 +1,279 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.model;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
+
+import static com.fortyoneconcepts.valjogen.model.util.NamesUtil.*;
+
+/**
+ * Process-wide index of reflection information about existing classes used by the default implementation of the magic type queries
+ * in {@link Type}. Each qualified name is resolved at most once and the supertypes, methods and fields of the class are precomputed into
+ * sets of names, so repeated queries from templates are hash lookups instead of new reflection scans.
+ *
+ * Classes are only weakly referenced by the index, so the index does not keep class loaders alive. The precomputed name sets are just strings.
+ * As the index lives as long as the processor classes (also between compilations in build daemons), the least recently used names are dropped when it
+ * exceeds a maximum number of names and it can be cleared explicitly by {@link ReflectionIndex#clear()}.
+ *
+ * @author mmc
+ */
+public final class ReflectionIndex
+{
+	static final int maxEntries = 10000;
+
+	private static final Entry missingEntry = new Entry();
+
+	// Names of missing classes include the types of the compiled sources, which differ between compilations, so only the most recently used are kept.
+	private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+		{
+			return size()>maxEntries;
+		}
+	};
+
+	/**
+	 * Reflection information about a single class. Immutable and thread-safe.
+	 */
+	static final class Entry
+	{
+		private final WeakReference<Class<?>> clazz;
+		private final Set<String> superTypeNames;
+		private final Set<String> staticMethodOverloadNames;
+		private final Set<String> instanceMethodOverloadNames;
+		private final Set<String> staticFieldNames;
+		private final Set<String> instanceFieldNames;
+
+		private Entry()
+		{
+			this.clazz=null;
+			this.superTypeNames=Collections.emptySet();
+			this.staticMethodOverloadNames=Collections.emptySet();
+			this.instanceMethodOverloadNames=Collections.emptySet();
+			this.staticFieldNames=Collections.emptySet();
+			this.instanceFieldNames=Collections.emptySet();
+		}
+
+		private Entry(Class<?> clazz)
+		{
+			this.clazz=new WeakReference<Class<?>>(clazz);
+
+			Set<String> superTypeNames = new HashSet<String>();
+			addSuperTypesWithAscendants(clazz, superTypeNames);
+			this.superTypeNames=Collections.unmodifiableSet(superTypeNames);
+
+			Method[] methods = clazz.getMethods();
+			this.staticMethodOverloadNames=getOverloadNames(methods, Modifier.STATIC, Modifier.PRIVATE);
+			this.instanceMethodOverloadNames=getOverloadNames(methods, 0, Modifier.STATIC | Modifier.PRIVATE);
+
+			Field[] fields = clazz.getFields();
+			this.staticFieldNames=getFieldNames(fields, Modifier.STATIC, Modifier.PRIVATE);
+			this.instanceFieldNames=getFieldNames(fields, 0, Modifier.STATIC | Modifier.PRIVATE);
+		}
+
+		/**
+		 * @return True if the class was found.
+		 */
+		boolean exists()
+		{
+			return clazz!=null;
+		}
+
+		/**
+		 * @return The class or null if not found or no longer loaded.
+		 */
+		Class<?> getReflectionClass()
+		{
+			return clazz!=null ? clazz.get() : null;
+		}
+
+		boolean isOfQualifiedType(String qualifiedClassOrInterfaceName)
+		{
+			return superTypeNames.contains(qualifiedClassOrInterfaceName);
+		}
+
+		boolean hasStaticMethod(String overloadName)
+		{
+			return hasOverload(staticMethodOverloadNames, overloadName);
+		}
+
+		boolean hasInstanceMethod(String overloadName)
+		{
+			return hasOverload(instanceMethodOverloadNames, overloadName);
+		}
+
+		boolean hasStaticMember(String name)
+		{
+			return staticFieldNames.contains(name);
+		}
+
+		boolean hasInstanceMember(String name)
+		{
+			return instanceFieldNames.contains(name);
+		}
+
+		private static boolean hasOverload(Set<String> overloadNames, String overloadName)
+		{
+			// Plain overload names without wildcards, packages or spaces can be looked up directly. Others need the full matching rules.
+			String exactOverloadName = getExactOverloadName(overloadName);
+			if (exactOverloadName!=null)
+				return overloadNames.contains(exactOverloadName);
+
+			return overloadNames.stream().anyMatch(n -> matchingOverloads(n, overloadName, false));
+		}
+
+		private static String getExactOverloadName(String overloadName)
+		{
+			for (int i=0; i<overloadName.length(); ++i)
+			{
+				char ch = overloadName.charAt(i);
+				if (ch=='*' || ch=='.' || Character.isWhitespace(ch))
+					return null;
+			}
+
+			int nameQualifierPos = overloadName.indexOf('(');
+			if (nameQualifierPos<0)
+				return overloadName+"()";
+			else if (overloadName.indexOf(')')==overloadName.length()-1)
+				return overloadName;
+			else return null;
+		}
+
+		private static void addSuperTypesWithAscendants(Class<?> clazz, Set<String> superTypeNames)
+		{
+			if (!superTypeNames.add(clazz.getName()))
+				return;
+
+			Class<?> superClazz = clazz.getSuperclass();
+			if (superClazz!=null)
+				addSuperTypesWithAscendants(superClazz, superTypeNames);
+
+			for (Class<?> superInterface : clazz.getInterfaces())
+				addSuperTypesWithAscendants(superInterface, superTypeNames);
+		}
+
+		private static Set<String> getOverloadNames(Method[] methods, int reqModifierFlags, int reqNotModifierFlags)
+		{
+			return Collections.unmodifiableSet(Arrays.stream(methods).filter(m -> hasModifiers(m.getModifiers(), reqModifierFlags, reqNotModifierFlags))
+					                                                 .map(m -> getReflectionOverloadName(m))
+					                                                 .collect(Collectors.toCollection(() -> new LinkedHashSet<String>())));
+		}
+
+		private static Set<String> getFieldNames(Field[] fields, int reqModifierFlags, int reqNotModifierFlags)
+		{
+			return Collections.unmodifiableSet(Arrays.stream(fields).filter(f -> hasModifiers(f.getModifiers(), reqModifierFlags, reqNotModifierFlags))
+					                                                .map(f -> f.getName())
+					                                                .collect(Collectors.toSet()));
+		}
+
+		private static boolean hasModifiers(int modifiers, int reqModifierFlags, int reqNotModifierFlags)
+		{
+			return ((modifiers & reqModifierFlags)==reqModifierFlags) && ((modifiers & reqNotModifierFlags)==0);
+		}
+
+		private static String getReflectionOverloadName(Method m)
+		{
+			return m.getName()+"("+Arrays.stream(m.getParameterTypes()).map(p -> p.getSimpleName()).collect(Collectors.joining(","))+")";
+		}
+	}
+
+	private ReflectionIndex()
+	{
+	}
+
+	/**
+	 * Returns reflection information about a class. Only supported for existing classes on classpath.
+	 *
+	 * @param qualifiedName The qualified name of the class, primitive type or array.
+	 *
+	 * @return The entry for the class. Use {@link Entry#exists()} to check if the class was found.
+	 */
+	static Entry get(String qualifiedName)
+	{
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(qualifiedName);
+		}
+
+		if (entry==null || (entry.exists() && entry.getReflectionClass()==null))
+		{
+			// Nb. Concurrent lookups of the same new name may resolve it more than once. That is harmless as the entries are equal.
+			Class<?> clazz = tryGetReflectionClass(qualifiedName);
+			entry = clazz!=null ? new Entry(clazz) : missingEntry;
+
+			synchronized (entries) {
+				entries.put(qualifiedName, entry);
+			}
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Forget all reflection information.
+	 */
+	public static void clear()
+	{
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * @return Number of names in the index.
+	 */
+	public static int size()
+	{
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private static Class<?> tryGetReflectionClass(String qName)
+	{
+		try {
+		  boolean isArray = qName.endsWith("[]");
+		  String lookupName = NamesUtil.stripArrrayQualifier(qName);
+		  if (isArray) {
+			  switch (lookupName)
+			  {
+			   case "boolean": return boolean[].class;
+			   case "char": return char[].class;
+			   case "byte": return byte[].class;
+			   case "short": return short[].class;
+			   case "int": return int[].class;
+			   case "long": return long[].class;
+			   case "float": return float[].class;
+			   case "double": return double[].class;
+			   default: return Class.forName("[L"+lookupName+";");
+			  }
+		  } else {
+			  switch (lookupName)
+			  {
+			   case "boolean": return boolean.class;
+			   case "char": return char.class;
+			   case "byte": return byte.class;
+			   case "short": return short.class;
+			   case "int": return int.class;
+			   case "long": return long.class;
+			   case "float": return float.class;
+			   case "double": return double.class;
+			   default: return Class.forName(lookupName);
+			  }
+		  }
+		} catch(Exception e)
+		{
+			return null; // Return null if failed.
+		}
+	}
+}
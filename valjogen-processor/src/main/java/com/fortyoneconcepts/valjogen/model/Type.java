@@ -4,8 +4,6 @@
 package com.fortyoneconcepts.valjogen.model;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
 import com.fortyoneconcepts.valjogen.processor.STCustomModelAdaptor;
@@ -346,16 +344,7 @@ public abstract class Type extends ModelBase
 			return true;
 
 		// The default implementation just use reflection for a known classes. Other implementations can deal with new classes also.
-		Class<?> clazz = tryGetReflectionClass();
-		if (clazz==null)
-			throw new RuntimeException("No detailed information available about "+getQualifiedName());
-
-		Stream<Class<?>> clazzAndSuperClazzes = getReflectionSuperTypesWithAscendants(clazz);
-
-		clazzAndSuperClazzes = getReflectionSuperTypesWithAscendants(clazz);
-
-		boolean match = clazzAndSuperClazzes.anyMatch( c -> c.getName().equals(qualifiedClassOrInterfaceName));
-		return match;
+		return getReflectionEntry().isOfQualifiedType(qualifiedClassOrInterfaceName);
 	}
 
 	/**
@@ -373,13 +362,7 @@ public abstract class Type extends ModelBase
 	public boolean hasStaticMethod(String overloadName)
 	{
 		// The default implementation just use reflection for a known classes. Other implementations can deal with new classes also.
-		Class<?> clazz = tryGetReflectionClass();
-		if (clazz==null)
-			throw new RuntimeException("No detailed information available about "+getQualifiedName());
-
-		final int reqModifierFlags = java.lang.reflect.Modifier.STATIC;
-		final int reqNotModifierFlags = java.lang.reflect.Modifier.PRIVATE;
-		return Arrays.stream(clazz.getMethods()).anyMatch(m -> matchingOverloads(getReflectionOverloadName(m, true), overloadName, false) && ((m.getModifiers() & reqModifierFlags)==reqModifierFlags) && ((m.getModifiers() & reqNotModifierFlags)==0));
+		return getReflectionEntry().hasStaticMethod(overloadName);
 	}
 
 	/**
@@ -397,12 +380,7 @@ public abstract class Type extends ModelBase
 	public boolean hasInstanceMethod(String overloadName)
 	{
 		// The default implementation just use reflection for a known classes. Other implementations can deal with new classes also.
-		Class<?> clazz = tryGetReflectionClass();
-		if (clazz==null)
-			throw new RuntimeException("No detailed information available about "+getQualifiedName());
-
-		final int reqNotModifierFlags = java.lang.reflect.Modifier.STATIC | java.lang.reflect.Modifier.PRIVATE;
-		return Arrays.stream(clazz.getMethods()).anyMatch(m -> matchingOverloads(getReflectionOverloadName(m, true), overloadName, false) && ((m.getModifiers() & reqNotModifierFlags)==0));
+		return getReflectionEntry().hasInstanceMethod(overloadName);
 	}
 
 	/**
@@ -417,13 +395,7 @@ public abstract class Type extends ModelBase
 	public boolean hasStaticMember(String name)
 	{
 		// The default implementation just use reflection for a known classes. Other implementations can deal with new classes also.
-		Class<?> clazz = tryGetReflectionClass();
-		if (clazz==null)
-			throw new RuntimeException("No detailed information available about "+getQualifiedName());
-
-		final int reqModifierFlags = java.lang.reflect.Modifier.STATIC;
-		final int reqNotModifierFlags = java.lang.reflect.Modifier.PRIVATE;
-		return Arrays.stream(clazz.getFields()).anyMatch(f -> f.getName().equals(name) && ((f.getModifiers() & reqModifierFlags)==reqModifierFlags) && ((f.getModifiers() & reqNotModifierFlags)==0));
+		return getReflectionEntry().hasStaticMember(name);
 	}
 
 	/**
@@ -438,86 +410,22 @@ public abstract class Type extends ModelBase
 	public boolean hasInstanceMember(String name)
 	{
 		// The default implementation just use reflection for a known classes. Other implementations can deal with new classes also.
-		Class<?> clazz = tryGetReflectionClass();
-		if (clazz==null)
-			throw new RuntimeException("No detailed information available about "+getQualifiedName());
-
-		final int reqNotModifierFlags = java.lang.reflect.Modifier.STATIC | java.lang.reflect.Modifier.PRIVATE;
-		return Arrays.stream(clazz.getFields()).anyMatch(f -> f.getName().equals(name) && ((f.getModifiers() & reqNotModifierFlags)==0));
-	}
-
-	private final Stream<Class<?>> getReflectionSuperTypesWithAscendants(Class<?> clazz)
-	{
-		Class<?> superClazz = clazz.getSuperclass();
-		Stream<Class<?>> interfaces = Arrays.stream(clazz.getInterfaces());
-
-		Stream<Class<?>> all;
-		if (superClazz!=null)
-			all=Stream.concat(Stream.of(superClazz), interfaces);
-		else all=interfaces;
-
-		return Stream.concat(Stream.of(clazz), all.flatMap(c -> getReflectionSuperTypesWithAscendants(c)));
+		return getReflectionEntry().hasInstanceMember(name);
 	}
 
 	/**
 	 * Only supported for existing classes on classpath. Other implementations that deal with generated/new classes should not use reflection anyway.
 	 *
-	 * @return The class or null if unsupported.
+	 * @return The reflection information about this type.
+	 *
+	 * @throws RuntimeException if no class exist for this type.
 	 */
-	private final Class<?> tryGetReflectionClass()
-	{
-		try {
-	      String qName = getQualifiedName();
-		  boolean isArray = qName.endsWith("[]");
-		  String lookupName = stripArrrayQualifier(qName);
-		  if (isArray) {
-			  switch (lookupName)
-			  {
-			   case "boolean": return boolean[].class;
-			   case "char": return char[].class;
-			   case "byte": return byte[].class;
-			   case "short": return short[].class;
-			   case "int": return int[].class;
-			   case "long": return long[].class;
-			   case "float": return float[].class;
-			   case "double": return double[].class;
-			   default: return Class.forName("[L"+lookupName+";");
-			  }
-		  } else {
-			  switch (lookupName)
-			  {
-			   case "boolean": return boolean.class;
-			   case "char": return char.class;
-			   case "byte": return byte.class;
-			   case "short": return short.class;
-			   case "int": return int.class;
-			   case "long": return long.class;
-			   case "float": return float.class;
-			   case "double": return double.class;
-			   default: return Class.forName(lookupName);
-			  }
-		  }
-		} catch(Exception e)
-		{
-			return null; // Return null if failed.
-		}
-	}
-
-	private final String getReflectionOverloadName(java.lang.reflect.Method m, boolean includeMethodName)
-	{
-		StringBuilder sb = new StringBuilder();
-
-		if (includeMethodName)
-			sb.append(m.getName());
-
-		sb.append("(");
-		sb.append(Arrays.stream(m.getParameters()).map(p -> {
-		  return p.getType().getSimpleName();
-		}).collect(Collectors.joining(",")));
-
-		sb.append(")");
-
-		return sb.toString();
+	private final ReflectionIndex.Entry getReflectionEntry()
+	{
+		ReflectionIndex.Entry entry = ReflectionIndex.get(getQualifiedName());
+		if (!entry.exists())
+			throw new RuntimeException("No detailed information available about "+getQualifiedName());
+		return entry;
 	}
 
 	@Override
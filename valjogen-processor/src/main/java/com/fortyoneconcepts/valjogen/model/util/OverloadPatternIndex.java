@@ -0,0 +1,153 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.model.util;
+
+import java.util.*;
+
+/**
+ * Index of values keyed by overload name patterns (with optional * wildcards) as used in the configuration. Patterns are grouped by
+ * method name, so a lookup only has to match the patterns for the same method name and the patterns with a wildcard method name instead of all patterns.
+ *
+ * Lookups give the same result as matching every pattern using {@link NamesUtil#matchingOverloads(String, String, boolean)}, in the order the
+ * patterns were added.
+ *
+ * @param <V> Value type.
+ *
+ * @author mmc
+ */
+public final class OverloadPatternIndex<V>
+{
+	private static final String wildcardName = "*";
+
+	private final boolean ignoreAllPackages;
+	private final Map<String, List<Entry<V>>> entriesByName;
+	private final List<Entry<V>> wildcardEntries;
+	private int count;
+
+	private static final class Entry<V>
+	{
+		private final int order;
+		private final String pattern;
+		private final V value;
+
+		private Entry(int order, String pattern, V value)
+		{
+			this.order=order;
+			this.pattern=pattern;
+			this.value=value;
+		}
+	}
+
+	/**
+	 * Create an empty index.
+	 *
+	 * @param ignoreAllPackages True all if packages should be ignored when matching, false if only java.lang packages should be ignored.
+	 */
+	public OverloadPatternIndex(boolean ignoreAllPackages)
+	{
+		this.ignoreAllPackages=ignoreAllPackages;
+		this.entriesByName=new HashMap<String, List<Entry<V>>>();
+		this.wildcardEntries=new ArrayList<Entry<V>>();
+	}
+
+	/**
+	 * Create an index with values of key-value pairs keyed by overload name patterns.
+	 *
+	 * @param pairs Overload name patterns and the values to be found for them.
+	 * @param ignoreAllPackages True all if packages should be ignored when matching, false if only java.lang packages should be ignored.
+	 */
+	public OverloadPatternIndex(List<KeyValuePair<String, V>> pairs, boolean ignoreAllPackages)
+	{
+		this(ignoreAllPackages);
+		for (KeyValuePair<String, V> pair : pairs)
+			add(pair.getKey(), pair.getValue());
+	}
+
+	/**
+	 * Add a value for an overload name pattern.
+	 *
+	 * @param pattern The overload name pattern.
+	 * @param value The value to be found for overload names matching the pattern.
+	 */
+	public void add(String pattern, V value)
+	{
+		Entry<V> entry = new Entry<V>(count++, pattern, value);
+
+		String name = getName(pattern);
+		if (name.equals(wildcardName))
+			wildcardEntries.add(entry);
+		else entriesByName.computeIfAbsent(name, n -> new ArrayList<Entry<V>>()).add(entry);
+	}
+
+	/**
+	 * Find the values of all patterns matching an overload name.
+	 *
+	 * @param overloadName The overload name to find values for. May contain wildcards as well.
+	 *
+	 * @return Matching values in the order their patterns were added.
+	 */
+	public List<V> get(String overloadName)
+	{
+		if (count==0)
+			return Collections.emptyList();
+
+		String name = getName(overloadName);
+
+		List<Entry<V>> candidates;
+		if (name.equals(wildcardName)) {
+			candidates = new ArrayList<Entry<V>>(wildcardEntries);
+			entriesByName.values().forEach(l -> candidates.addAll(l));
+			candidates.sort((e1, e2) -> Integer.compare(e1.order, e2.order));
+		} else {
+			candidates = merge(entriesByName.getOrDefault(name, Collections.emptyList()), wildcardEntries);
+		}
+
+		List<V> result = new ArrayList<V>();
+		for (Entry<V> candidate : candidates)
+		{
+			if (NamesUtil.matchingOverloads(candidate.pattern, overloadName, ignoreAllPackages))
+				result.add(candidate.value);
+		}
+
+		if (result.isEmpty())
+			return Collections.emptyList();
+
+		return result;
+	}
+
+	/**
+	 * @return True if no patterns has been added.
+	 */
+	public boolean isEmpty()
+	{
+		return count==0;
+	}
+
+	private static <V> List<Entry<V>> merge(List<Entry<V>> l1, List<Entry<V>> l2)
+	{
+		if (l2.isEmpty())
+			return l1;
+		if (l1.isEmpty())
+			return l2;
+
+		List<Entry<V>> result = new ArrayList<Entry<V>>(l1.size()+l2.size());
+		int i1=0, i2=0;
+		while (i1<l1.size() || i2<l2.size())
+		{
+			if (i2>=l2.size() || (i1<l1.size() && l1.get(i1).order<l2.get(i2).order))
+				result.add(l1.get(i1++));
+			else result.add(l2.get(i2++));
+		}
+
+		return result;
+	}
+
+	// Same name part as used by NamesUtil.matchingOverloads.
+	private static String getName(String overloadName)
+	{
+		overloadName=overloadName.trim();
+		int nameQualifierPos = overloadName.indexOf("(");
+		return nameQualifierPos>=0 ? overloadName.substring(0, nameQualifierPos) : overloadName;
+	}
+}
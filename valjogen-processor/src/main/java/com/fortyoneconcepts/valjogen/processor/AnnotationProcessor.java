@@ -3,10 +3,15 @@
 */
 package com.fortyoneconcepts.valjogen.processor;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.logging.Level;
@@ -19,30 +24,59 @@ import javax.lang.model.util.*;
 import javax.lang.model.*;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 import com.fortyoneconcepts.valjogen.annotations.*;
 import com.fortyoneconcepts.valjogen.model.*;
+import com.fortyoneconcepts.valjogen.processor.FlightRecorderEvents.EventKind;
+import com.fortyoneconcepts.valjogen.processor.GenerationCache.CachedOutput;
+import com.fortyoneconcepts.valjogen.processor.TimingReport.Phase;
 import com.fortyoneconcepts.valjogen.processor.builders.ModelBuilder;
+import com.fortyoneconcepts.valjogen.processor.builders.TypeSymbolTable;
 
 import static com.fortyoneconcepts.valjogen.model.util.NamesUtil.*;
 
 /**
  * Main class for our annotation processor using the javax annotation processor api. Instantiated and used from javac compiler.
  *
+ * The processor is isolating in the Gradle sense: Each generated file has the annotated interface as its originating element and the output for
+ * an interface never depends on other annotated interfaces (state shared between interfaces are caches keyed by content only). An interface configured
+ * by a package-level VALJOConfigure annotation also has its package as originating element, so the output is regenerated when package-info.java
+ * changes. Gradle does a full recompilation for files with more than one originating element, so such interfaces do not benefit from incremental
+ * processing in Gradle.
+ *
  * @author mmc
  */
 public class AnnotationProcessor extends AbstractProcessor
 {
 	private final static Logger LOGGER = Logger.getLogger(AnnotationProcessor.class.getName());
 
+	private static final String dependencyFilesFolder = "META-INF/valjogen/";
+	private static final String dependencyFilesSuffix = ".dependencies";
+	private static final int outputBufferSize = 64*1024;
+
 	private final Class<VALJOGenerate> annotationGenerateClass = VALJOGenerate.class;
 	private final Class<VALJOConfigure> annotationConfigurationClass = VALJOConfigure.class;
 
 	private String processingEnvClassName;
 	private final Logger parentLogger;
+	private boolean loggingSetUp;
+	private String loggingFile;
+	private Level loggingLevel;
 	private final Map<String,String> ctrOptions;
 
+	private STTemplateCache templateCache;
+	private ResourceCache resourceCache;
+	private RenderPipeline renderPipeline;
+	private Optional<GenerationCache> generationCache;
+	private Optional<TimingReport> timingReport;
+	private Map<TypeElement, String> cacheFingerprints;
+	private TypeSymbolTable symbolTable;
+	private Map<String,String> mergedOptions;
+	private Map<Element, Optional<VALJOConfigure>> closestConfigurations;
+
 	/**
 	 * Constructor called automatically by javac compiler.
 	 */
@@ -63,12 +97,28 @@ public class AnnotationProcessor extends AbstractProcessor
 		parentLogger.setLevel(Level.INFO);
 	}
 
+	/**
+	 * Clear the caches that are kept between compilations in the same JVM (see {@link ConfigurationOptionKeys#WARMCACHE}). Build tools and IDEs can call this
+	 * when templates, the settings file or processor dependencies may have changed without the processor being reloaded.
+	 */
+	public static void clearWarmCaches()
+	{
+		STTemplateCache.clearShared();
+		ReflectionIndex.clear();
+		Configuration.clearConfigFileOptions();
+	}
+
 	@Override
 	public void init(ProcessingEnvironment pe) {
 	    super.init(pe);
 
 	    processingEnvClassName = pe.getClass().getName();
 
+	    templateCache = null;
+	    resourceCache = new ResourceCache();
+	    cacheFingerprints = new HashMap<TypeElement, String>();
+	    loggingSetUp = false;
+
 	    // NOTE: For the future, we could also inspect source using Tree api by saving instance her : E.g. this.trees = Trees.instance(pe);
 	}
 
@@ -104,30 +154,31 @@ public class AnnotationProcessor extends AbstractProcessor
 
 		boolean claimed = true;
 
+		// Types are shared by all interfaces in a round but javax.lang.model.* instances must not be used in later rounds.
+		symbolTable = new TypeSymbolTable(processingEnv.getTypeUtils());
+		closestConfigurations = new HashMap<Element, Optional<VALJOConfigure>>();
+
 		for (TypeElement te: annotationElements)
 		{
 			for (Element e : roundEnv.getElementsAnnotatedWith(te)) {
 			  if (e.getKind()==ElementKind.INTERFACE) {
 				  try {
+					long startNanos = System.nanoTime();
+
 					VALJOGenerate annotationGenerate = e.getAnnotation(VALJOGenerate.class);
 					VALJOConfigure optConfigureConfiguration = getClosestConfiguration(e);
 
-					Map<String,String> processorEnvOptions = processingEnv.getOptions();
-					if (processorEnvOptions==null)
-						processorEnvOptions=new HashMap<String,String>();
-
-					// Merge processor options with any options provided directly to constructor.
-					Map<String,String> options = new HashMap<String,String>(processorEnvOptions);
-					for(Entry<String, String> ctrOption : ctrOptions.entrySet()) {
-						   options.putIfAbsent(ctrOption.getKey(), ctrOption.getValue());
-					}
+					Map<String,String> options = getMergedOptions();
 
 					String masterInterfaceName = e.asType().toString();
 					Configuration configuration = optConfigureConfiguration!=null
 							                      ? new Configuration(masterInterfaceName, sourceVersion, annotationGenerate, optConfigureConfiguration, optLocale, options)
 					                              :  new Configuration(masterInterfaceName, sourceVersion, annotationGenerate, optLocale, options);
 
-			        KnownFileHandler.setUpLogging(parentLogger, configuration);
+			        setUpLogging(configuration);
+
+			        TimingReport.Record timing = getTimingRecord(configuration, (TypeElement)e);
+			        startNanos = timing.add(Phase.CONFIGURATION, startNanos);
 
 					String srcPath = configuration.getSourcePath();
 					LOGGER.fine(() -> "GOT SOURCEPATH: "+srcPath);
@@ -136,21 +187,14 @@ public class AnnotationProcessor extends AbstractProcessor
 
 					PackageElement packageElement = (PackageElement)(e.getEnclosingElement());
 					String sourcePackageElementPath = packageElement.getQualifiedName().toString().replace(".", File.separator);
-					ResourceLoader resourceLoader = new ResourceLoader(srcPath, sourcePackageElementPath);
+					ResourceLoader resourceLoader = new ResourceLoader(srcPath, sourcePackageElementPath, resourceCache);
+					timing.add(Phase.RESOURCELOADER, startNanos);
 
-				    generate((TypeElement)e, configuration, resourceLoader);
+				    generate((TypeElement)e, configuration, resourceLoader, timing);
 
 				    claimed=true;
-				  } catch (ConfigurationException ex)  {
-					  if (LOGGER.isLoggable(Level.INFO))
-						  messager.printMessage(Diagnostic.Kind.ERROR, ex.getMessage(), e);
-					  else messager.printMessage(Diagnostic.Kind.ERROR, ex.getMessage());
-				  } catch(STException ex)
-				  {
-					 messager.printMessage(Diagnostic.Kind.ERROR, String.format(ProcessorMessages.StringTemplateExceptionFailure, e.toString(), ex.toString()), e);
-				  } catch(Exception ex)
-				  {
-					 messager.printMessage(Diagnostic.Kind.ERROR, String.format(ProcessorMessages.ExceptionFailure, e.toString(), LOGGER.isLoggable(Level.INFO) ? trace(ex) : ex), e);
+				  } catch (Exception ex)  {
+					  reportFailure(e, ex);
 				  }
 			  } else { // A class:
 				  messager.printMessage(Diagnostic.Kind.ERROR, String.format(ProcessorMessages.AnnotationOnInterfacesOnly, annotationGenerateClass.getSimpleName()), e);
@@ -158,15 +202,158 @@ public class AnnotationProcessor extends AbstractProcessor
 			}
 		}
 
+		if (renderPipeline!=null)
+			renderPipeline.drain();
+
+		LOGGER.fine(() -> "Shared "+symbolTable.size()+" types in round");
+		symbolTable = null;
+		closestConfigurations = null;
+
+		if (roundEnv.processingOver())
+		{
+			LOGGER.fine(() -> "Resources used in compilation: "+resourceCache);
+
+			if (renderPipeline!=null) {
+				renderPipeline.shutdown();
+				renderPipeline=null;
+			}
+
+			if (generationCache!=null && generationCache.isPresent())
+				messager.printMessage(Kind.NOTE, String.format(ProcessorMessages.GenerationCacheStatistics, generationCache.get().getHits(), generationCache.get().getMisses()));
+
+			if (timingReport!=null && timingReport.isPresent() && !timingReport.get().isEmpty())
+				writeTimingReport(timingReport.get());
+
+			KnownFileHandler.flushLogging(parentLogger);
+
+			cacheFingerprints.clear();
+		}
+
 		return claimed;
 	}
 
-	private void generate(TypeElement element, Configuration configuration, ResourceLoader resourceLoader) throws Exception
+	/**
+	 * Set up logging unless it is already set up the same way in this compilation (normally all interfaces are logged in the same way).
+	 *
+	 * @param configuration The configuration of the interface to log.
+	 * @throws ConfigurationException If the log file could not be used.
+	 */
+	private void setUpLogging(Configuration configuration) throws ConfigurationException
 	{
-		LOGGER.fine(() -> "Using Annotation processing environment : "+processingEnvClassName);
+		String logFile = configuration.getLogFile();
+		Level logLevel = configuration.getLogLevel();
+		if (loggingSetUp && Objects.equals(logFile, loggingFile) && logLevel.equals(loggingLevel))
+			return;
+
+		KnownFileHandler.setUpLogging(parentLogger, configuration);
 
+		loggingSetUp=true;
+		loggingFile=logFile;
+		loggingLevel=logLevel;
+	}
+
+	private void reportFailure(Element e, Exception ex)
+	{
+		Messager messager = processingEnv.getMessager();
+
+		cacheFingerprints.remove(e);
+
+		if (ex instanceof ConfigurationException) {
+			if (LOGGER.isLoggable(Level.INFO))
+				messager.printMessage(Diagnostic.Kind.ERROR, ex.getMessage(), e);
+			else messager.printMessage(Diagnostic.Kind.ERROR, ex.getMessage());
+		} else if (ex instanceof STException) {
+			messager.printMessage(Diagnostic.Kind.ERROR, String.format(ProcessorMessages.StringTemplateExceptionFailure, e.toString(), ex.toString()), e);
+		} else {
+			messager.printMessage(Diagnostic.Kind.ERROR, String.format(ProcessorMessages.ExceptionFailure, e.toString(), LOGGER.isLoggable(Level.INFO) ? trace(ex) : ex), e);
+		}
+	}
+
+	private RenderPipeline getRenderPipeline(Configuration configuration)
+	{
+		// Number of threads and maximum in flight are processor options so the same for all configurations.
+		if (renderPipeline==null)
+			renderPipeline=new RenderPipeline(configuration.getRenderThreads(), configuration.getMaxInFlight(), this::writeOutput, this::writeStreamingOutput, this::reportFailure);
+		return renderPipeline;
+	}
+
+	private STTemplateCache getTemplateCache(Configuration configuration)
+	{
+		// Warm cache size is a processor option so the same for all configurations.
+		if (templateCache==null)
+		{
+			int warmCacheSize = configuration.getWarmCacheSize();
+			templateCache = warmCacheSize>0 ? STTemplateCache.getShared(warmCacheSize) : new STTemplateCache();
+		}
+		return templateCache;
+	}
+
+	private GenerationCache getGenerationCache(Configuration configuration) throws IOException
+	{
+		// Cache directory is a processor option so the same for all configurations.
+		if (generationCache==null)
+		{
+			String cacheDir = configuration.getCacheDir();
+			generationCache = Optional.ofNullable(cacheDir!=null ? new GenerationCache(Paths.get(cacheDir)) : null);
+		}
+		return generationCache.orElse(null);
+	}
+
+	/**
+	 * Get the record where times spend processing an interface should be added.
+	 *
+	 * @param configuration The configuration of the interface.
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @return The record of the timing report if enabled, otherwise a record that is not reported.
+	 */
+	private TimingReport.Record getTimingRecord(Configuration configuration, TypeElement element)
+	{
+		// Timing report is a processor option so the same for all configurations.
+		if (timingReport==null)
+		{
+			String reportName = configuration.getTimingReport();
+			timingReport = Optional.ofNullable(reportName!=null ? new TimingReport(reportName) : null);
+		}
+		return getTimingRecord(element);
+	}
+
+	/**
+	 * Get the record where times spend processing an interface should be added.
+	 *
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @return The record of the timing report if enabled, otherwise a record that is not reported.
+	 */
+	private TimingReport.Record getTimingRecord(TypeElement element)
+	{
+		String interfaceName = element.getQualifiedName().toString();
+		if (timingReport!=null && timingReport.isPresent())
+			return timingReport.get().getRecord(interfaceName);
+		return TimingReport.createUnreportedRecord(interfaceName);
+	}
+
+	private void writeTimingReport(TimingReport report)
+	{
 		Messager messager = processingEnv.getMessager();
 		Filer filer = processingEnv.getFiler();
+
+		try {
+			FileObject target = filer.createResource(StandardLocation.CLASS_OUTPUT, "", report.getResourceName());
+			try (Writer targetWriter = new BufferedWriter(target.openWriter()))
+			{
+				report.write(targetWriter);
+			}
+
+			messager.printMessage(Kind.NOTE, report.getSummary());
+		} catch (IOException e) {
+			messager.printMessage(Kind.WARNING, String.format(ProcessorMessages.TimingReportFailure, report.getResourceName(), e));
+		}
+	}
+
+	private void generate(TypeElement element, Configuration configuration, ResourceLoader resourceLoader, TimingReport.Record timing) throws Exception
+	{
+		LOGGER.fine(() -> "Using Annotation processing environment : "+processingEnvClassName);
+
+		Messager messager = processingEnv.getMessager();
 		Types types = processingEnv.getTypeUtils();
 		Elements elements = processingEnv.getElementUtils();
 
@@ -176,38 +363,219 @@ public class AnnotationProcessor extends AbstractProcessor
 			LOGGER.fine(() -> "Using resourceloader: "+resourceLoader);
 		}
 
-		STTemplates templates = new STTemplates(resourceLoader, configuration);
+		if (configuration.isDependencyFilesEnabled())
+			writeDependencies(element, configuration, resourceLoader);
+
+		GenerationCache cache = getGenerationCache(configuration);
+		String fingerprint = null;
+		if (cache!=null)
+		{
+			fingerprint = SourceFingerprint.create(processingEnv, element, configuration, resourceLoader);
+
+			CachedOutput cached = cache.lookup(element.getQualifiedName().toString(), fingerprint);
+			if (cached!=null)
+			{
+				LOGGER.info(() -> "VALJOGen ANNOTATION PROCESSOR REUSING CACHED OUTPUT FOR "+element.getQualifiedName());
+				getRenderPipeline(configuration).submitRendered(element, cached.fileName, cached.output);
+				return;
+			}
+		}
+
+		long startNanos = System.nanoTime();
+		FlightRecorderEvents.Event templateEvent = FlightRecorderEvents.begin(EventKind.TEMPLATE_LOAD);
+		STTemplates templates = getTemplateCache(configuration).getTemplates(resourceLoader, configuration);
+		startNanos = timing.add(Phase.TEMPLATES, startNanos);
+		if (templateEvent.isEnabled())
+			templateEvent.commit(timing.getInterfaceName(), configuration.getCustomJavaTemplateFileName(), templates.getAllTemplateMethodNames().size());
 
+		FlightRecorderEvents.Event modelEvent = FlightRecorderEvents.begin(EventKind.MODEL_BUILD);
+
+		int[] messageCount = new int[1];
 		ModelBuilder clazzFactory = new ModelBuilder(types, elements, (msgElement, kind, err) -> {
+			++messageCount[0];
 			if (msgElement!=null)
 				messager.printMessage(kind, err, msgElement);
 			else messager.printMessage(kind, err);
-		}, element, configuration, resourceLoader, templates);
+		}, element, configuration, resourceLoader, templates, symbolTable);
 
 		Clazz clazz = clazzFactory.buildNewCLazz();
+		timing.add(Phase.MODEL, startNanos);
 		if (clazz==null)
 			return;
 
+		int methodCount = clazz.getPropertyMethods().size()+clazz.getMethods().size();
+		timing.setModelStatistics(clazz.getMembers().size(), methodCount, clazzFactory.getTypeCount());
+		if (modelEvent.isEnabled())
+			modelEvent.commit(timing.getInterfaceName(), clazz.getMembers().size(), methodCount, clazzFactory.getTypeCount());
+
+		// Cached output must not hide any messages so only output generated without messages is cached.
+		if (fingerprint!=null && messageCount[0]==0)
+			cacheFingerprints.put(element, fingerprint);
+
 		LOGGER.info(() -> "VALJOGen ANNOTATION PROCESSOR GENERATED CLAZZ MODEL INSTANCE "+System.lineSeparator()+clazz.toString());
 
-		STCodeWriter writer = new STCodeWriter(clazz, configuration, templates);
-		String output = writer.outputClass();
+		String fileName=stripGenericQualifier(clazz.getQualifiedName());
+
+		// Interactive template debugging blocks rendering so it is never done in parallel.
+		boolean parallel = !configuration.isDebugStringTemplatesEnabled();
+
+		// Render without building the output as a string unless the full output is needed for caching or logging.
+		RenderPipeline pipeline = getRenderPipeline(configuration);
+
+		// Content of types that is resolved on first access can not be resolved by other threads.
+		if (parallel && pipeline.isParallel())
+			clazzFactory.resolveContent();
+		if (fingerprint!=null || LOGGER.isLoggable(Level.INFO) || !pipeline.trySubmitStreaming(element, fileName, w -> {
+				long renderStartNanos = System.nanoTime();
+				FlightRecorderEvents.Event renderEvent = FlightRecorderEvents.begin(EventKind.RENDER);
+				new STCodeWriter(clazz, configuration, templates).outputClass(w);
+				timing.add(Phase.RENDER, renderStartNanos);
+				if (renderEvent.isEnabled())
+					renderEvent.commit(timing.getInterfaceName(), -1);
+			}, parallel))
+			pipeline.submit(element, fileName, () -> {
+				long renderStartNanos = System.nanoTime();
+				FlightRecorderEvents.Event renderEvent = FlightRecorderEvents.begin(EventKind.RENDER);
+				String output = new STCodeWriter(clazz, configuration, templates).outputClass();
+				timing.add(Phase.RENDER, renderStartNanos);
+				if (renderEvent.isEnabled())
+					renderEvent.commit(timing.getInterfaceName(), output.length());
+				return output;
+			}, parallel);
+	}
+
+	/**
+	 * Writes a resource listing the side files (header and custom template) used for an interface, so build tools that only track originating
+	 * elements can also track these.
+	 *
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @param configuration The configuration of the interface.
+	 * @param resourceLoader Used to find the side files.
+	 * @throws Exception If a side file could not be found or the resource could not be written.
+	 */
+	private void writeDependencies(TypeElement element, Configuration configuration, ResourceLoader resourceLoader) throws Exception
+	{
+		List<String> sideFiles = new ArrayList<String>();
+		for (String sideFileName : new String[] { configuration.getHeaderFileName(), configuration.getCustomJavaTemplateFileName() })
+		{
+			if (sideFileName!=null)
+				sideFiles.add(Paths.get(resourceLoader.getFileResourceAsURL(sideFileName)).toString());
+		}
+
+		String resourceName = dependencyFilesFolder+element.getQualifiedName()+dependencyFilesSuffix;
+
+		FileObject target = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourceName, getOriginatingElements(element));
+		try (PrintWriter targetWriter = new PrintWriter(target.openWriter()))
+		{
+			for (String sideFile : sideFiles)
+				targetWriter.println(sideFile);
+		}
+
+		LOGGER.fine(() -> "Wrote dependencies "+sideFiles+" of "+element.getQualifiedName()+" to "+resourceName);
+	}
+
+	private void writeOutput(TypeElement element, String fileName, String output) throws Exception
+	{
+
 		if (output!=null)
 		{
-			String fileName=stripGenericQualifier(clazz.getQualifiedName());
+			writeStreamingOutput(element, fileName, output.length(), w -> w.write(output));
+
+			LOGGER.info(() -> "VALJOGen ANNOTATION PROCESSOR GENERATED TARGET FILE "+fileName+" WITH CONTENT: "+System.lineSeparator()+output);
+
+		    String fingerprint = cacheFingerprints.remove(element);
+		    if (fingerprint!=null)
+		    	generationCache.get().store(element.getQualifiedName().toString(), fingerprint, fileName, output);
+		}
+	}
+
+	/**
+	 * Render directly into an output file without building the output in memory first.
+	 *
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @param fileName The qualified name of the generated class.
+	 * @param renderer Writes the output.
+	 * @throws Exception If rendering or writing failed.
+	 */
+	private void writeStreamingOutput(TypeElement element, String fileName, RenderPipeline.StreamingRenderer renderer) throws Exception
+	{
+		writeStreamingOutput(element, fileName, -1, renderer);
+	}
 
-			JavaFileObject target = filer.createSourceFile(fileName, element);
+	/**
+	 * Create the output file and write to it. If rendering fails, the partially written file is deleted again, so no truncated source is left for javac.
+	 *
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @param fileName The qualified name of the generated class.
+	 * @param outputLength Length of the output if known or -1 otherwise.
+	 * @param renderer Writes the output.
+	 * @throws Exception If rendering or writing failed.
+	 */
+	private void writeStreamingOutput(TypeElement element, String fileName, int outputLength, RenderPipeline.StreamingRenderer renderer) throws Exception
+	{
+		Messager messager = processingEnv.getMessager();
+		Filer filer = processingEnv.getFiler();
+
+		TimingReport.Record timing = getTimingRecord(element);
+		long startNanos = System.nanoTime();
+		FlightRecorderEvents.Event writeEvent = FlightRecorderEvents.begin(EventKind.FILER_WRITE);
+
+		JavaFileObject target = filer.createSourceFile(fileName, getOriginatingElements(element));
 
-			try (PrintWriter targetWriter = new PrintWriter(target.openWriter()))
+		boolean written = false;
+		try {
+			try (Writer targetWriter = new BufferedWriter(target.openWriter(), outputBufferSize))
 			{
-			  targetWriter.write(output);
-  			  LOGGER.info(() -> "VALJOGen ANNOTATION PROCESSOR GENERATED TARGET FILE "+fileName+" WITH CONTENT: "+System.lineSeparator()+output);
+				renderer.render(targetWriter);
 			}
+			written = true;
+		} finally {
+			if (!written)
+				deletePartialOutput(target);
+		}
+
+		timing.add(Phase.WRITE, startNanos);
+		if (writeEvent.isEnabled())
+			writeEvent.commit(element.getQualifiedName().toString(), fileName, outputLength);
 
-		    messager.printMessage(Kind.NOTE, "VALJOGen Annotation Processor successfully generated file "+target.getName());
+	    messager.printMessage(Kind.NOTE, "VALJOGen Annotation Processor successfully generated file "+target.getName());
+	}
+
+	/**
+	 * Delete a file that failed to be written. The filer of javac does not support deleting the files it created, so files in the file system are
+	 * deleted directly.
+	 *
+	 * @param target The partially written file.
+	 */
+	private void deletePartialOutput(JavaFileObject target)
+	{
+		try {
+			if (!target.delete() && "file".equals(target.toUri().getScheme()))
+				Files.deleteIfExists(Paths.get(target.toUri()));
+		} catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Could not delete partially written file "+target.getName(), e);
 		}
 	}
 
+	/**
+	 * Get the elements that the output of an interface is generated from, i.e. the interface itself and its package if the package has the
+	 * VALJOConfigure annotation used by the interface.
+	 *
+	 * @param element The interface that uses the VALJOGen annotation.
+	 * @return The originating elements to give to the filer.
+	 */
+	private Element[] getOriginatingElements(TypeElement element)
+	{
+		Element configuredElement = element;
+		while (configuredElement!=null && configuredElement.getAnnotation(annotationConfigurationClass)==null)
+			configuredElement=configuredElement.getEnclosingElement();
+
+		if (configuredElement!=null && configuredElement.getKind()==ElementKind.PACKAGE)
+			return new Element[] { element, configuredElement };
+
+		return new Element[] { element };
+	}
+
 	/**
 	 * Looks for VALJOConfigure in interface and package of interface.
 	 *
@@ -221,7 +589,41 @@ public class AnnotationProcessor extends AbstractProcessor
 			return configuration;
 
 		Element enlosingElement = annotatedInterfaceElement.getEnclosingElement();
-		return (enlosingElement!=null) ? getClosestConfiguration(enlosingElement) : null;
+		if (enlosingElement==null)
+			return null;
+
+		// Enclosing elements (packages) are shared by many interfaces in a round so their lookup is only done once.
+		Optional<VALJOConfigure> enclosingConfiguration = closestConfigurations.get(enlosingElement);
+		if (enclosingConfiguration==null) {
+			enclosingConfiguration = Optional.ofNullable(getClosestConfiguration(enlosingElement));
+			closestConfigurations.put(enlosingElement, enclosingConfiguration);
+		}
+
+		return enclosingConfiguration.orElse(null);
+	}
+
+	/**
+	 * Merge processor options with any options provided directly to constructor. Both are fixed so this is only done once.
+	 *
+	 * @return The merged options. Must not be modified.
+	 */
+	private Map<String,String> getMergedOptions()
+	{
+		if (mergedOptions==null)
+		{
+			Map<String,String> processorEnvOptions = processingEnv.getOptions();
+			if (processorEnvOptions==null)
+				processorEnvOptions=new HashMap<String,String>();
+
+			Map<String,String> options = new HashMap<String,String>(processorEnvOptions);
+			for(Entry<String, String> ctrOption : ctrOptions.entrySet()) {
+				   options.putIfAbsent(ctrOption.getKey(), ctrOption.getValue());
+			}
+
+			mergedOptions=Collections.unmodifiableMap(options);
+		}
+
+		return mergedOptions;
 	}
 
 	@Override
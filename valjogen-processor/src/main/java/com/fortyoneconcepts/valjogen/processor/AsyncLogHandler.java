@@ -0,0 +1,178 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Log handler that writes to a log file on a background thread, so detailed logging (like model dumps and generated files) does not slow down
+ * the javac thread. Records are queued and written in batches with one flush per batch.
+ *
+ * The queue is bounded. When it is full, records below {@link Level#INFO} are dropped (and the number dropped is logged later) while records at
+ * INFO level or above wait for room in the queue so they are never lost.
+ *
+ * Use {@link #flush()} to wait until all queued records are written.
+ *
+ * @author mmc
+ */
+final class AsyncLogHandler extends Handler
+{
+	static final int defaultCapacity = 8192;
+
+	private static final int maxBatchSize = 512;
+	private static final long maxFlushWaitMillis = 10000;
+
+	private final KnownFileHandler target;
+	private final BlockingQueue<LogRecord> queue;
+	private final Thread worker;
+
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final Object progressLock = new Object();
+	private long written;
+	private volatile boolean closed;
+
+	/**
+	 * Create a handler and start its background thread.
+	 *
+	 * @param target The file handler to write to. It is closed when this handler is closed.
+	 * @param capacity Maximum number of queued records.
+	 */
+	AsyncLogHandler(KnownFileHandler target, int capacity)
+	{
+		this.target=Objects.requireNonNull(target);
+		this.queue=new ArrayBlockingQueue<LogRecord>(capacity);
+
+		this.worker=new Thread(this::writeQueued, "valjogen-log-writer");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	KnownFileHandler getTarget()
+	{
+		return target;
+	}
+
+	/**
+	 * @return Number of records dropped because the queue was full and which have not been reported in the log yet.
+	 */
+	long getPendingDropCount()
+	{
+		return dropped.get();
+	}
+
+	@Override
+	public void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+
+		// The caller is found from the stack so it must be inferred on the logging thread.
+		record.getSourceClassName();
+
+		if (record.getLevel().intValue()>=Level.INFO.intValue())
+		{
+			try {
+				queue.put(record);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				dropped.incrementAndGet();
+				return;
+			}
+		} else if (!queue.offer(record)) {
+			dropped.incrementAndGet();
+			return;
+		}
+
+		queued.incrementAndGet();
+	}
+
+	/**
+	 * Wait until the records queued before the call are written and flush the log file.
+	 */
+	@Override
+	public void flush()
+	{
+		long target = queued.get();
+		long deadline = System.currentTimeMillis()+maxFlushWaitMillis;
+
+		synchronized (progressLock) {
+			long remaining;
+			while (written<target && worker.isAlive() && (remaining=deadline-System.currentTimeMillis())>0) {
+				try {
+					progressLock.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+
+		this.target.flush();
+	}
+
+	@Override
+	public void close() throws SecurityException
+	{
+		if (closed)
+			return;
+
+		flush();
+		closed=true;
+
+		worker.interrupt();
+		try {
+			worker.join(maxFlushWaitMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		target.close();
+	}
+
+	private void writeQueued()
+	{
+		List<LogRecord> batch = new ArrayList<LogRecord>(maxBatchSize+1);
+
+		while (true)
+		{
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				if (closed)
+					return;
+				continue;
+			}
+			queue.drainTo(batch, maxBatchSize-1);
+			int batchSize = batch.size();
+
+			long droppedCount = dropped.getAndSet(0);
+			if (droppedCount>0)
+				batch.add(new LogRecord(Level.WARNING, String.format(ProcessorMessages.LogRecordsDropped, droppedCount)));
+
+			try {
+				target.publishBatch(batch);
+			} catch (RuntimeException e) {
+				reportError("Could not write log records", e, ErrorManager.WRITE_FAILURE);
+			}
+
+			batch.clear();
+
+			synchronized (progressLock) {
+				written+=batchSize;
+				progressLock.notifyAll();
+			}
+		}
+	}
+}
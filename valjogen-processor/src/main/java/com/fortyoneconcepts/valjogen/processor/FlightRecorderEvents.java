@@ -0,0 +1,363 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Java Flight Recorder events for the phases of processing, so a recording of a real build shows where time is spend by the processor next to the activity of
+ * javac and the garbage collector. Enable them with for example "-XX:StartFlightRecording:settings=profile" and look for the "VALJOGen" category.
+ *
+ * The processor targets Java 8 where JFR may not exist, so the events are defined when first used through jdk.jfr.EventFactory which is looked up by
+ * reflection. If JFR is not available or an event is not enabled in any running recording, {@link #begin(EventKind)} returns an event that does nothing
+ * without allocating anything. Running recordings are tracked by a recorder listener, so when nothing is recorded {@link #begin(EventKind)} returns
+ * without calling into JFR at all.
+ *
+ * @author mmc
+ */
+public final class FlightRecorderEvents
+{
+	private final static Logger LOGGER = Logger.getLogger(FlightRecorderEvents.class.getName());
+
+	private static final String category = "VALJOGen";
+
+	/**
+	 * The events emitted and the values they carry (in the order they must be passed to {@link Event#commit(Object...)}).
+	 */
+	public enum EventKind
+	{
+		MODEL_BUILD("ValjoModelBuild", "Model Build", "interfaceName", String.class, "memberCount", int.class, "methodCount", int.class, "typeCount", int.class),
+		TEMPLATE_LOAD("ValjoTemplateLoad", "Template Load", "interfaceName", String.class, "templateFileName", String.class, "templateMethodCount", int.class),
+		RENDER("ValjoRender", "Render", "interfaceName", String.class, "outputLength", int.class),
+		FILER_WRITE("ValjoFilerWrite", "Filer Write", "interfaceName", String.class, "fileName", String.class, "outputLength", int.class),
+		TYPE_POOL_MISS("ValjoTypePoolMiss", "Type Pool Miss", "interfaceName", String.class, "typeName", String.class, "detailLevel", String.class);
+
+		private final String eventName;
+		private final String label;
+		private final Object[] fields;
+
+		private volatile EventType type;
+
+		private EventKind(String eventName, String label, Object... fields)
+		{
+			this.eventName=eventName;
+			this.label=label;
+			this.fields=fields;
+		}
+
+		public String getEventName()
+		{
+			return eventName;
+		}
+
+		private EventType getType()
+		{
+			EventType result = type;
+			if (result==null)
+			{
+				synchronized (this) {
+					result = type;
+					if (result==null)
+						type = result = EventType.create(this);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * An event that has begun. Values are only collected when the event is committed.
+	 */
+	public interface Event
+	{
+		/**
+		 * @return True if the event is recorded so values that are expensive to compute are needed.
+		 */
+		boolean isEnabled();
+
+		/**
+		 * End and record the event.
+		 *
+		 * @param values Values of the fields of the event kind in order.
+		 */
+		void commit(Object... values);
+	}
+
+	private static final Event noEvent = new Event() {
+		@Override
+		public boolean isEnabled()
+		{
+			return false;
+		}
+
+		@Override
+		public void commit(Object... values)
+		{
+		}
+	};
+
+	private static final JfrApi jfr = JfrApi.lookup();
+
+	// Ids of the running recordings. Only valid if recordingsTracked is true.
+	private static final Set<Long> runningRecordings = ConcurrentHashMap.newKeySet();
+	private static final boolean recordingsTracked = jfr!=null && jfr.trackRecordings(runningRecordings);
+
+	private FlightRecorderEvents()
+	{
+	}
+
+	/**
+	 * Return true if the JDK supports flight recorder events defined at runtime.
+	 *
+	 * @return True if available.
+	 */
+	public static boolean isAvailable()
+	{
+		return jfr!=null;
+	}
+
+	/**
+	 * Begin an event of the specified kind.
+	 *
+	 * @param kind The kind of event.
+	 *
+	 * @return The begun event or an event that does nothing if the kind is not recorded.
+	 */
+	public static Event begin(EventKind kind)
+	{
+		if (jfr==null || (recordingsTracked && runningRecordings.isEmpty()))
+			return noEvent;
+
+		EventType type = kind.getType();
+		return type.isEnabled() ? type.begin() : noEvent;
+	}
+
+	/**
+	 * Record a single event without a duration.
+	 *
+	 * @param kind The kind of event.
+	 * @param values Values of the fields of the event kind in order.
+	 */
+	public static void emit(EventKind kind, Object... values)
+	{
+		begin(kind).commit(values);
+	}
+
+	/**
+	 * Method handles of the jdk.jfr API used. Looked up once.
+	 */
+	private static final class JfrApi
+	{
+		private final MethodHandle createFactory;
+		private final MethodHandle newAnnotationElement;
+		private final MethodHandle newValueDescriptor;
+		private final MethodHandle getEventType;
+		private final MethodHandle newEvent;
+		private final MethodHandle isEnabled;
+		private final MethodHandle begin;
+		private final MethodHandle set;
+		private final MethodHandle commit;
+		private final MethodHandle addListener;
+		private final MethodHandle getRecordings;
+		private final MethodHandle getRecordingId;
+		private final MethodHandle getRecordingState;
+		private final Class<?> listenerClass;
+		private final Class<?> nameAnnotation;
+		private final Class<?> labelAnnotation;
+		private final Class<?> categoryAnnotation;
+
+		private JfrApi(ClassLoader loader) throws ReflectiveOperationException
+		{
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+			Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory", false, loader);
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement", false, loader);
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor", false, loader);
+			Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType", false, loader);
+			Class<?> eventClass = Class.forName("jdk.jfr.Event", false, loader);
+			Class<?> recorderClass = Class.forName("jdk.jfr.FlightRecorder", false, loader);
+			Class<?> recordingClass = Class.forName("jdk.jfr.Recording", false, loader);
+			Class<?> recordingStateClass = Class.forName("jdk.jfr.RecordingState", false, loader);
+			listenerClass = Class.forName("jdk.jfr.FlightRecorderListener", false, loader);
+
+			createFactory = lookup.findStatic(factoryClass, "create", MethodType.methodType(factoryClass, List.class, List.class));
+			newAnnotationElement = lookup.findConstructor(annotationElementClass, MethodType.methodType(void.class, Class.class, Object.class));
+			newValueDescriptor = lookup.findConstructor(valueDescriptorClass, MethodType.methodType(void.class, Class.class, String.class));
+			getEventType = lookup.findVirtual(factoryClass, "getEventType", MethodType.methodType(eventTypeClass));
+			newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(eventClass));
+			isEnabled = lookup.findVirtual(eventTypeClass, "isEnabled", MethodType.methodType(boolean.class));
+			begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class));
+			set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class));
+			commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class));
+			addListener = lookup.findStatic(recorderClass, "addListener", MethodType.methodType(void.class, listenerClass));
+			getRecordings = lookup.findVirtual(recorderClass, "getRecordings", MethodType.methodType(List.class));
+			getRecordingId = lookup.findVirtual(recordingClass, "getId", MethodType.methodType(long.class));
+			getRecordingState = lookup.findVirtual(recordingClass, "getState", MethodType.methodType(recordingStateClass));
+
+			nameAnnotation = Class.forName("jdk.jfr.Name", false, loader);
+			labelAnnotation = Class.forName("jdk.jfr.Label", false, loader);
+			categoryAnnotation = Class.forName("jdk.jfr.Category", false, loader);
+		}
+
+		private static JfrApi lookup()
+		{
+			try {
+				return new JfrApi(FlightRecorderEvents.class.getClassLoader());
+			} catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+				LOGGER.fine(() -> "Flight recorder events not available: "+e);
+				return null;
+			}
+		}
+
+		/**
+		 * Register a listener that keeps a set of the ids of the running recordings up to date.
+		 *
+		 * @param runningRecordings The set to keep up to date.
+		 *
+		 * @return True if the listener was registered, false if the running recordings are unknown.
+		 */
+		private boolean trackRecordings(Set<Long> runningRecordings)
+		{
+			Object listener = Proxy.newProxyInstance(FlightRecorderEvents.class.getClassLoader(), new Class<?>[] { listenerClass }, (proxy, method, args) -> {
+				switch (method.getName())
+				{
+					case "recorderInitialized":
+						for (Object recording : (List<?>)getRecordings.invoke(args[0]))
+							updateRecording(recording, runningRecordings);
+						return null;
+					case "recordingStateChanged":
+						updateRecording(args[0], runningRecordings);
+						return null;
+					case "equals":
+						return proxy==args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return "VALJOGen recording listener";
+				}
+			});
+
+			try {
+				addListener.invoke(listener);
+				return true;
+			} catch (Throwable e) {
+				LOGGER.fine(() -> "Could not track flight recordings: "+e);
+				return false;
+			}
+		}
+
+		private void updateRecording(Object recording, Set<Long> runningRecordings) throws Throwable
+		{
+			long id = (long)getRecordingId.invoke(recording);
+			if (((Enum<?>)getRecordingState.invoke(recording)).name().equals("RUNNING"))
+				runningRecordings.add(id);
+			else runningRecordings.remove(id);
+		}
+
+		private Object createAnnotation(Class<?> annotationClass, Object value) throws Throwable
+		{
+			return newAnnotationElement.invoke(annotationClass.asSubclass(Annotation.class), value);
+		}
+	}
+
+	/**
+	 * A defined event type which can begin events of its kind.
+	 */
+	private static final class EventType
+	{
+		private final Object factory;
+		private final Object jfrEventType;
+
+		private EventType(Object factory, Object jfrEventType)
+		{
+			this.factory=factory;
+			this.jfrEventType=jfrEventType;
+		}
+
+		private static EventType create(EventKind kind)
+		{
+			try {
+				List<Object> annotations = Arrays.asList(jfr.createAnnotation(jfr.nameAnnotation, kind.eventName),
+						                                 jfr.createAnnotation(jfr.labelAnnotation, kind.label),
+						                                 jfr.createAnnotation(jfr.categoryAnnotation, new String[] { category }));
+
+				List<Object> fields = new ArrayList<Object>();
+				for (int i=0; i+1<kind.fields.length; i+=2)
+					fields.add(jfr.newValueDescriptor.invoke((Class<?>)kind.fields[i+1], (String)kind.fields[i]));
+
+				Object factory = jfr.createFactory.invoke(annotations, fields);
+				return new EventType(factory, jfr.getEventType.invoke(factory));
+			} catch (Throwable e) {
+				LOGGER.log(Level.WARNING, "Could not define flight recorder event "+kind.eventName, e);
+				return new EventType(null, null);
+			}
+		}
+
+		private boolean isEnabled()
+		{
+			if (jfrEventType==null)
+				return false;
+
+			try {
+				return (boolean)jfr.isEnabled.invoke(jfrEventType);
+			} catch (Throwable e) {
+				return false;
+			}
+		}
+
+		private Event begin()
+		{
+			try {
+				Object jfrEvent = jfr.newEvent.invoke(factory);
+				jfr.begin.invoke(jfrEvent);
+				return new BegunEvent(jfrEvent);
+			} catch (Throwable e) {
+				LOGGER.log(Level.FINE, "Could not begin flight recorder event", e);
+				return noEvent;
+			}
+		}
+	}
+
+	/**
+	 * Event that is recorded when committed.
+	 */
+	private static final class BegunEvent implements Event
+	{
+		private final Object jfrEvent;
+
+		private BegunEvent(Object jfrEvent)
+		{
+			this.jfrEvent=jfrEvent;
+		}
+
+		@Override
+		public boolean isEnabled()
+		{
+			return true;
+		}
+
+		@Override
+		public void commit(Object... values)
+		{
+			try {
+				for (int i=0; i<values.length; ++i)
+					jfr.set.invoke(jfrEvent, i, values[i]);
+				jfr.commit.invoke(jfrEvent);
+			} catch (Throwable e) {
+				LOGGER.log(Level.FINE, "Could not commit flight recorder event", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of generated source that survives between compilations. Each interface has one entry holding the
+ * fingerprint (see {@link SourceFingerprint}) that the source was generated for, so an entry is only used when nothing that
+ * affects the output has changed.
+ *
+ * @author mmc
+ */
+final class GenerationCache
+{
+	private final static Logger LOGGER = Logger.getLogger(GenerationCache.class.getName());
+
+	private static final String entrySuffix = ".valjogen";
+
+	/**
+	 * Previously generated output.
+	 */
+	static final class CachedOutput
+	{
+		final String fileName;
+		final String output;
+
+		private CachedOutput(String fileName, String output)
+		{
+			this.fileName=fileName;
+			this.output=output;
+		}
+	}
+
+	private final Path directory;
+	private int hits;
+	private int misses;
+
+	GenerationCache(Path directory) throws IOException
+	{
+		this.directory=Files.createDirectories(directory);
+	}
+
+	/**
+	 * Lookup previously generated output.
+	 *
+	 * @param key Qualified name of the interface.
+	 * @param fingerprint Fingerprint of the current interface and configuration.
+	 *
+	 * @return The cached output or null if there is no entry with the same fingerprint.
+	 */
+	CachedOutput lookup(String key, String fingerprint)
+	{
+		Path entry = directory.resolve(key+entrySuffix);
+
+		CachedOutput result = null;
+		if (Files.isRegularFile(entry))
+		{
+			try {
+				String content = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+
+				int fingerprintEnd = content.indexOf('\n');
+				int fileNameEnd = fingerprintEnd>=0 ? content.indexOf('\n', fingerprintEnd+1) : -1;
+				if (fileNameEnd>=0 && content.substring(0, fingerprintEnd).equals(fingerprint))
+					result = new CachedOutput(content.substring(fingerprintEnd+1, fileNameEnd), content.substring(fileNameEnd+1));
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Could not read cache entry "+entry, e);
+			}
+		}
+
+		if (result!=null)
+			++hits;
+		else ++misses;
+
+		return result;
+	}
+
+	/**
+	 * Store generated output, replacing any older entry for the same interface.
+	 *
+	 * @param key Qualified name of the interface.
+	 * @param fingerprint Fingerprint of the interface and configuration the output was generated for.
+	 * @param fileName Name of the generated file.
+	 * @param output The generated source.
+	 */
+	void store(String key, String fingerprint, String fileName, String output)
+	{
+		Path entry = directory.resolve(key+entrySuffix);
+		try {
+			Path tempFile = Files.createTempFile(directory, key, ".tmp");
+			Files.write(tempFile, (fingerprint+"\n"+fileName+"\n"+output).getBytes(StandardCharsets.UTF_8));
+			Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Could not write cache entry "+entry, e);
+		}
+	}
+
+	int getHits()
+	{
+		return hits;
+	}
+
+	int getMisses()
+	{
+		return misses;
+	}
+}
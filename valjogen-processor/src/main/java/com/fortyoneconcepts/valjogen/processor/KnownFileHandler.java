@@ -1,9 +1,11 @@
 package com.fortyoneconcepts.valjogen.processor;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 
@@ -12,13 +14,15 @@ import com.fortyoneconcepts.valjogen.model.Configuration;
 /**
  * Our own FileHandler class so we can recognize it from other FileHandlers.
  *
- * At the same time this handler class provides help for adding/removing.
+ * At the same time this handler class provides help for adding/removing. The handler is added behind an {@link AsyncLogHandler} so the log file
+ * is written in batches on a background thread.
  *
  * @author mmc
  */
 public final class KnownFileHandler extends FileHandler
 {
 	private final String pattern;
+	private boolean deferFlush;
 
 	public KnownFileHandler(String pattern, boolean append) throws IOException, SecurityException
 	{
@@ -31,6 +35,42 @@ public final class KnownFileHandler extends FileHandler
 		return pattern;
 	}
 
+	/**
+	 * Write several records with a single flush at the end (FileHandler flushes after each record otherwise).
+	 *
+	 * @param records The records to write.
+	 */
+	synchronized void publishBatch(List<LogRecord> records)
+	{
+		deferFlush=true;
+		try {
+			for (LogRecord record : records)
+				publish(record);
+		} finally {
+			deferFlush=false;
+		}
+		flush();
+	}
+
+	@Override
+	public synchronized void flush()
+	{
+		if (!deferFlush)
+			super.flush();
+	}
+
+	/**
+	 * Wait until log records published before the call are written to the log file set up by {@link #setUpLogging(Logger, Configuration)}.
+	 *
+	 * @param parentLogger The logger instance that has been configured.
+	 */
+	public static void flushLogging(Logger parentLogger)
+	{
+		for (Handler handler : parentLogger.getHandlers())
+			if (handler instanceof AsyncLogHandler)
+				handler.flush();
+	}
+
 	/**
 	 * Configure log system (parentLogger) according to configuration.
 	 *
@@ -48,8 +88,8 @@ public final class KnownFileHandler extends FileHandler
 			Handler[] handlers = parentLogger.getHandlers().clone();
 			boolean alreadyAddedLogger = false;
 		    for (Handler _handler : handlers) {
-			    if (_handler instanceof KnownFileHandler) {
-			    	KnownFileHandler handler = (KnownFileHandler)_handler;
+			    if (_handler instanceof AsyncLogHandler) {
+			    	KnownFileHandler handler = ((AsyncLogHandler)_handler).getTarget();
 			    	if (handler.getPattern().equals(logFileString)) {
 			    		alreadyAddedLogger=true;
 			    	} else {
@@ -60,10 +100,13 @@ public final class KnownFileHandler extends FileHandler
 		    }
 
 			if (!alreadyAddedLogger && logFileString!=null) {
-				FileHandler logFile = new KnownFileHandler(logFileString, true);
+				KnownFileHandler logFile = new KnownFileHandler(logFileString, true);
 				logFile.setFormatter(new SimpleFormatter());
 				logFile.setLevel(Level.FINEST);
-				parentLogger.addHandler(logFile);
+
+				AsyncLogHandler asyncLogFile = new AsyncLogHandler(logFile, AsyncLogHandler.defaultCapacity);
+				asyncLogFile.setLevel(Level.FINEST);
+				parentLogger.addHandler(asyncLogFile);
 			}
 		} catch(Throwable ex)
 		{
@@ -35,6 +35,10 @@ public interface ProcessorMessages
 
   public static final String NotAllMembersAreComparable="Implementation for %s is comparable but not all members are comparable and which members to use are not specifed. Non comparable-members will be omitted in compareTo method";
 
+  public static final String GenerationCacheStatistics="VALJOGen generation cache: %d hit(s), %d miss(es)";
+  public static final String TimingReportSummary="VALJOGen timing: %d interface(s) in %d ms (details in %s), slowest: %s";
+  public static final String TimingReportFailure="VALJOGen could not write timing report %s due to %s";
+  public static final String LogRecordsDropped="VALJOGen dropped %d detailed log record(s) because logging could not keep up";
   public static final String SucessMsg="Sucessfully generated file %s";
 
   public static final String UNKNOWN_METHOD = "Unknown/undeclared method %s";
@@ -0,0 +1,278 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Renders finished models into source text, either directly on the calling thread or on a pool of worker threads.
+ *
+ * Rendered output is always handed back on the thread that calls {@link RenderPipeline#drain()} (the javac thread) and in the same
+ * order as submitted, so the Filer and Messager are never used from other threads.
+ *
+ * At most a fixed number of classes are in flight (queued for rendering or rendered but not written) at any time. When the maximum is reached the oldest
+ * output is written first, so the models and output held in memory do not grow with the number of interfaces in a round.
+ *
+ * @author mmc
+ */
+final class RenderPipeline
+{
+	private final static Logger LOGGER = Logger.getLogger(RenderPipeline.class.getName());
+
+	/**
+	 * Receives rendered source code on the javac thread.
+	 */
+	@FunctionalInterface
+	interface OutputConsumer
+	{
+		void output(TypeElement element, String fileName, String output) throws Exception;
+	}
+
+	/**
+	 * Renders source code directly into a writer.
+	 */
+	@FunctionalInterface
+	interface StreamingRenderer
+	{
+		void render(Writer writer) throws Exception;
+	}
+
+	/**
+	 * Receives a renderer on the javac thread that should write directly into the output.
+	 */
+	@FunctionalInterface
+	interface StreamingOutputConsumer
+	{
+		void output(TypeElement element, String fileName, StreamingRenderer renderer) throws Exception;
+	}
+
+	/**
+	 * Receives failures that occured while rendering in parallel.
+	 */
+	@FunctionalInterface
+	interface FailureConsumer
+	{
+		void failure(TypeElement element, Exception e);
+	}
+
+	private static final class PendingOutput
+	{
+		private final TypeElement element;
+		private final String fileName;
+		private final Future<String> output;
+
+		private PendingOutput(TypeElement element, String fileName, Future<String> output)
+		{
+			this.element=element;
+			this.fileName=fileName;
+			this.output=output;
+		}
+	}
+
+	private final ExecutorService executor;
+	private final OutputConsumer outputConsumer;
+	private final StreamingOutputConsumer streamingOutputConsumer;
+	private final FailureConsumer failureConsumer;
+	private final Deque<PendingOutput> pending;
+	private final int maxInFlight;
+
+	private int peakInFlight;
+
+	/**
+	 * Create a pipeline.
+	 *
+	 * @param threads Number of worker threads. If zero or less all rendering is done directly on the calling thread.
+	 * @param maxInFlight Maximum number of classes queued for rendering or waiting to be handed on. If zero or less twice the number of threads.
+	 * @param outputConsumer Where rendered output is handed to.
+	 * @param streamingOutputConsumer Where renderers that write directly into the output are handed to.
+	 * @param failureConsumer Where failures of parallel rendering is reported to.
+	 */
+	RenderPipeline(int threads, int maxInFlight, OutputConsumer outputConsumer, StreamingOutputConsumer streamingOutputConsumer, FailureConsumer failureConsumer)
+	{
+		this.executor = threads>0 ? Executors.newFixedThreadPool(threads, new RenderThreadFactory()) : null;
+		this.outputConsumer=Objects.requireNonNull(outputConsumer);
+		this.streamingOutputConsumer=Objects.requireNonNull(streamingOutputConsumer);
+		this.failureConsumer=Objects.requireNonNull(failureConsumer);
+		this.pending=new ArrayDeque<PendingOutput>();
+		this.maxInFlight=maxInFlight>0 ? maxInFlight : Math.max(1, 2*threads);
+
+		LOGGER.fine(() -> "Rendering using "+(executor!=null ? threads+" worker threads with at most "+this.maxInFlight+" classes in flight" : "compiler thread"));
+	}
+
+	/**
+	 * Return true if rendering is done by worker threads.
+	 *
+	 * @return True if parallel.
+	 */
+	boolean isParallel()
+	{
+		return executor!=null;
+	}
+
+	/**
+	 * Render output for a source element. In parallel mode the renderer is queued and the output is handed on by {@link RenderPipeline#drain()}. Otherwise
+	 * the output is rendered and handed on directly.
+	 *
+	 * @param element The source element.
+	 * @param fileName Name of the file to generate.
+	 * @param renderer Renders the output. Must not access javax.lang.model, Filer or Messager as it may be called from worker threads.
+	 * @param parallel False if the rendering must be done on the calling thread even in parallel mode.
+	 *
+	 * @throws Exception If direct rendering or consuming of the output fails.
+	 */
+	void submit(TypeElement element, String fileName, Callable<String> renderer, boolean parallel) throws Exception
+	{
+		if (executor!=null && parallel) {
+			drain(maxInFlight-1);
+			addPending(new PendingOutput(element, fileName, executor.submit(renderer)));
+		} else {
+			drain();
+			outputConsumer.output(element, fileName, renderer.call());
+		}
+	}
+
+	/**
+	 * Render output for a source element directly into the output if rendering is done on the calling thread. This avoids holding
+	 * the output in memory.
+	 *
+	 * @param element The source element.
+	 * @param fileName Name of the file to generate.
+	 * @param renderer Renders the output into a writer.
+	 * @param parallel False if the rendering must be done on the calling thread even in parallel mode.
+	 *
+	 * @return False if nothing was done because rendering should be done in parallel. Use {@link RenderPipeline#submit} instead then.
+	 *
+	 * @throws Exception If rendering fails.
+	 */
+	boolean trySubmitStreaming(TypeElement element, String fileName, StreamingRenderer renderer, boolean parallel) throws Exception
+	{
+		if (executor!=null && parallel)
+			return false;
+
+		drain();
+		streamingOutputConsumer.output(element, fileName, renderer);
+		return true;
+	}
+
+	/**
+	 * Hand on already rendered output for a source element. In parallel mode the output is queued after earlier submissions.
+	 *
+	 * @param element The source element.
+	 * @param fileName Name of the file to generate.
+	 * @param output The rendered output.
+	 *
+	 * @throws Exception If consuming of the output fails.
+	 */
+	void submitRendered(TypeElement element, String fileName, String output) throws Exception
+	{
+		if (executor!=null) {
+			drain(maxInFlight-1);
+			addPending(new PendingOutput(element, fileName, CompletableFuture.completedFuture(output)));
+		} else {
+			outputConsumer.output(element, fileName, output);
+		}
+	}
+
+	/**
+	 * Wait for all queued renderings and hand on the output in the order submitted. Must be called on the javac thread before the end of a round.
+	 */
+	void drain()
+	{
+		drain(0);
+	}
+
+	/**
+	 * Return the maximum number of classes that have been in flight at the same time.
+	 *
+	 * @return Peak number of queued classes.
+	 */
+	int getPeakInFlight()
+	{
+		return peakInFlight;
+	}
+
+	/**
+	 * Return the number of classes in flight now. These are the only renderers and outputs held by the pipeline.
+	 *
+	 * @return Number of queued classes.
+	 */
+	int getInFlight()
+	{
+		return pending.size();
+	}
+
+	private void addPending(PendingOutput output)
+	{
+		pending.add(output);
+		peakInFlight=Math.max(peakInFlight, pending.size());
+	}
+
+	/**
+	 * Hand on the oldest queued output until no more than the specified number of classes are in flight. Output is released as soon as it has been handed on.
+	 *
+	 * @param limit Number of classes that may remain in flight.
+	 */
+	private void drain(int limit)
+	{
+		while (pending.size()>limit)
+		{
+			PendingOutput next = pending.removeFirst();
+			try {
+				outputConsumer.output(next.element, next.fileName, getOutput(next.output));
+			} catch (Exception e) {
+				failureConsumer.failure(next.element, e);
+			}
+		}
+	}
+
+	/**
+	 * Release worker threads. Any output not yet drained is lost.
+	 */
+	void shutdown()
+	{
+		LOGGER.fine(() -> "At most "+peakInFlight+" classes were in flight");
+		pending.clear();
+		if (executor!=null)
+			executor.shutdownNow();
+	}
+
+	private static String getOutput(Future<String> output) throws Exception
+	{
+		try {
+			return output.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception)cause;
+			throw e;
+		}
+	}
+
+	private static final class RenderThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "valjogen-render-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
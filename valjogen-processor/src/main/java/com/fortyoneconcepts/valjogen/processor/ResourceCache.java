@@ -0,0 +1,221 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Compilation-scoped cache used by {@link ResourceLoader} instances so the source path is only split and resolved against the class path once per
+ * package and so resource files like headers and custom templates are only read once per compilation instead of once for each generated class.
+ *
+ * File contents are keyed by path and validated against the modification time of the file, so a changed file is read again.
+ *
+ * @author mmc
+ */
+public final class ResourceCache
+{
+	private final static Logger LOGGER = Logger.getLogger(ResourceCache.class.getName());
+
+	private final Map<String, List<Path>> sourcePathsByKey;
+	private final Map<String, Path> resolvedFilesByKey;
+	private final Map<Path, FileContent> contentByPath;
+
+	private List<Path> classPathFolders;
+	private int contentHits;
+	private int contentReads;
+
+	/**
+	 * Content of a file as it was at a specific modification time.
+	 */
+	private static final class FileContent
+	{
+		private final FileTime lastModified;
+		private final byte[] bytes;
+		private String text;
+
+		private FileContent(FileTime lastModified, byte[] bytes)
+		{
+			this.lastModified=lastModified;
+			this.bytes=bytes;
+		}
+
+		private String getText()
+		{
+			if (text==null)
+				text=toText(bytes);
+			return text;
+		}
+	}
+
+	public ResourceCache()
+	{
+		sourcePathsByKey = new HashMap<String, List<Path>>();
+		resolvedFilesByKey = new HashMap<String, Path>();
+		contentByPath = new HashMap<Path, FileContent>();
+	}
+
+	/**
+	 * Return the existing folders that the source path option resolves to for a package.
+	 *
+	 * @param sourcePathOption The source path option with path separated items (may be null).
+	 * @param defaultRelPackagePath The relative path of the package that is looked up first in each source path item.
+	 *
+	 * @return Unmodifiable list of resolved, absolute and normalized folders.
+	 *
+	 * @throws ConfigurationException if the source path option can not be resolved.
+	 */
+	public List<Path> getSourcePaths(String sourcePathOption, String defaultRelPackagePath) throws ConfigurationException
+	{
+		String key = sourcePathOption+System.getProperty("path.separator")+defaultRelPackagePath;
+
+		List<Path> result = sourcePathsByKey.get(key);
+		if (result==null)
+		{
+			result = Collections.unmodifiableList(ResourceLoader.resolveSourcePaths(sourcePathOption, defaultRelPackagePath, this::getClassPathFolders));
+			sourcePathsByKey.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the first readable file with the specified name in the specified folders.
+	 *
+	 * @param sourcePaths The folders to search in order.
+	 * @param fileName The relative name of the file.
+	 *
+	 * @return The path of the file or null if not found.
+	 */
+	public Path findFile(List<Path> sourcePaths, String fileName)
+	{
+		String key = sourcePaths.stream().map(Path::toString).collect(Collectors.joining(System.getProperty("path.separator")))+"#"+fileName;
+
+		Path result = resolvedFilesByKey.get(key);
+		if (result==null)
+		{
+			result = sourcePaths.stream().map(p -> p.resolve(fileName)).filter(p -> Files.isRegularFile(p) && Files.isReadable(p)).findFirst().orElse(null);
+			if (result!=null)
+				resolvedFilesByKey.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the content of a file, from this cache if the file has not been modified since it was read.
+	 *
+	 * @param path The file to read.
+	 *
+	 * @return The raw content of the file. Must not be modified by callers.
+	 *
+	 * @throws IOException if the file could not be read.
+	 */
+	public byte[] getBytes(Path path) throws IOException
+	{
+		return getContent(path).bytes;
+	}
+
+	/**
+	 * Return the content of a UTF-8 encoded text file with line endings converted to the line separator of the platform.
+	 *
+	 * @param path The file to read.
+	 *
+	 * @return The text of the file.
+	 *
+	 * @throws IOException if the file could not be read.
+	 */
+	public String getText(Path path) throws IOException
+	{
+		return getContent(path).getText();
+	}
+
+	/**
+	 * Return the number of file accesses that were served from this cache.
+	 *
+	 * @return Number of content hits.
+	 */
+	public int getContentHits()
+	{
+		return contentHits;
+	}
+
+	/**
+	 * Return the number of times files were actually read by this cache.
+	 *
+	 * @return Number of content reads.
+	 */
+	public int getContentReads()
+	{
+		return contentReads;
+	}
+
+	private FileContent getContent(Path path) throws IOException
+	{
+		FileTime lastModified = Files.getLastModifiedTime(path);
+
+		FileContent content = contentByPath.get(path);
+		if (content!=null && content.lastModified.equals(lastModified))
+		{
+			++contentHits;
+			return content;
+		}
+
+		LOGGER.fine(() -> "Reading resource "+path);
+
+		content = new FileContent(lastModified, Files.readAllBytes(path));
+		contentByPath.put(path, content);
+		++contentReads;
+		return content;
+	}
+
+	private List<Path> getClassPathFolders()
+	{
+		if (classPathFolders==null)
+		{
+			FileSystem fileSystem = FileSystems.getDefault();
+			String classesPath = System.getProperty("java.class.path");
+
+			classPathFolders = new ArrayList<Path>();
+			for (String pathName : classesPath.split("\\"+System.getProperty("path.separator")))
+			{
+				if (!pathName.contains(".jar") && !pathName.contains(".zip") && !pathName.contains(".war") && !pathName.contains(".ear"))
+					classPathFolders.add(fileSystem.getPath(pathName));
+			}
+		}
+		return classPathFolders;
+	}
+
+	private static String toText(byte[] bytes)
+	{
+		String newLine = System.lineSeparator();
+		String text = new String(bytes, StandardCharsets.UTF_8);
+
+		// Keep the line endings produced by earlier versions that read the file line by line.
+		StringBuilder out = new StringBuilder(text.length()+16);
+		Arrays.stream(text.split("\r\n|\r|\n", -1)).forEach(line -> out.append(line).append(newLine));
+
+		// A final line terminator does not start a new line.
+		if (text.isEmpty() || text.endsWith("\n") || text.endsWith("\r"))
+			out.setLength(out.length()-newLine.length());
+		return out.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ResourceCache {sourcePaths="+sourcePathsByKey.size()+", files="+contentByPath.size()+", hits="+contentHits+", reads="+contentReads+"}";
+	}
+}
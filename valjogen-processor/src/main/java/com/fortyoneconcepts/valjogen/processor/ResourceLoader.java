@@ -3,10 +3,8 @@
 */
 package com.fortyoneconcepts.valjogen.processor;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.net.URI;
-import java.net.URL;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -16,6 +14,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
@@ -29,16 +28,32 @@ import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
  */
 public final class ResourceLoader
 {
+	private final ResourceCache cache;
 	private final List<Path> configuredSourcePaths;
 	private final String defaultRelPackagePath;
 
 	public ResourceLoader(String sourcePathOption, String defaultRelPackagePath) throws ConfigurationException
 	{
-		this.configuredSourcePaths=getConfiguredSourcePaths(sourcePathOption, Objects.requireNonNull(defaultRelPackagePath));
+		this(sourcePathOption, defaultRelPackagePath, new ResourceCache());
+	}
+
+	/**
+	 * Create a resource loader that shares resolved source paths and file contents with other loaders in the same compilation.
+	 *
+	 * @param sourcePathOption The source path option with path separated items (may be null).
+	 * @param defaultRelPackagePath The relative path of the package that is looked up first in each source path item.
+	 * @param cache Compilation-scoped cache shared by loaders.
+	 *
+	 * @throws ConfigurationException if the source path option can not be resolved.
+	 */
+	public ResourceLoader(String sourcePathOption, String defaultRelPackagePath, ResourceCache cache) throws ConfigurationException
+	{
+		this.cache=Objects.requireNonNull(cache);
+		this.configuredSourcePaths=cache.getSourcePaths(sourcePathOption, Objects.requireNonNull(defaultRelPackagePath));
 		this.defaultRelPackagePath=Objects.requireNonNull(defaultRelPackagePath);
 	}
 
-	private static List<Path> getConfiguredSourcePaths(String sourcePathOption, String defaultRelPackagePath) throws ConfigurationException
+	static List<Path> resolveSourcePaths(String sourcePathOption, String defaultRelPackagePath, Supplier<List<Path>> classPathFolders) throws ConfigurationException
 	{
 		final String pathSep = System.getProperty("path.separator");
 
@@ -54,27 +69,17 @@ public final class ResourceLoader
 
 			 if (!sourcePath.isAbsolute())
 			 {
-				 String classesPath = System.getProperty("java.class.path");
-				 String[] classPathStrings = classesPath.split("\\"+pathSep);
+				 List<Path> classPathFolderPaths = classPathFolders.get();
+				 if (classPathFolderPaths.isEmpty())
+				    throw new ConfigurationException("Sourcepath item "+sourcePathString+" is relative to classpath folders but classpath contains no valid folders to base the source path on.");
 
-				 boolean hasClassPathFolder=false;
-				 for (int j=0; j<classPathStrings.length; ++j)
+				 for (Path singleClassPath : classPathFolderPaths)
 				 {
-					 String pathName = classPathStrings[j];
-
-					 if (!pathName.contains(".jar") && !pathName.contains(".zip") && !pathName.contains(".war") && !pathName.contains(".ear")) {
-						 hasClassPathFolder=true;
-
-						 Path singleClassPath = fileSystem.getPath(pathName);
-						 Path resolvedSourcePath=singleClassPath.resolve(sourcePath);
+					 Path resolvedSourcePath=singleClassPath.resolve(sourcePath);
 
-						 addIfExist(result, resolvedSourcePath.resolve(defaultRelPackagePath));
-						 addIfExist(result, resolvedSourcePath);
-					 }
+					 addIfExist(result, resolvedSourcePath.resolve(defaultRelPackagePath));
+					 addIfExist(result, resolvedSourcePath);
 				 }
-
-				 if (!hasClassPathFolder)
-				    throw new ConfigurationException("Sourcepath item "+sourcePathString+" is relative to classpath folders but classpath contains no valid folders to base the source path on.");
 			 } else {
 				 addIfExist(result, sourcePath.resolve(defaultRelPackagePath));
 				 addIfExist(result, sourcePath);
@@ -91,7 +96,7 @@ public final class ResourceLoader
 
 	private static void addIfExist(Collection<Path> result, Path path)
 	{
-		if (Files.exists(path) && Files.isDirectory(path)) {
+		if (Files.isDirectory(path)) {
 			 path=path.normalize().toAbsolutePath();
 			 result.add(path);
 		}
@@ -104,23 +109,43 @@ public final class ResourceLoader
 
 	public String getResourceAsText(String fileName) throws Exception
 	{
-		URI uri = getFileResourceAsURL(fileName);
-
-		URL url = uri.toURL();
-
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF8"))) {
-		    StringBuilder out = new StringBuilder();
-		    String newLine = System.getProperty("line.separator");
-		    String line;
-		    while ((line = reader.readLine()) != null) {
-		        out.append(line);
-		        out.append(newLine);
-		    }
-		    return out.toString();
-		}
+		return cache.getText(getFileResourceAsPath(fileName));
+	}
+
+	/**
+	 * Return the raw content of a resource file. The content may be shared with other loaders and must not be modified.
+	 *
+	 * @param fileName Name of file relative to the source paths.
+	 *
+	 * @return The bytes of the file.
+	 *
+	 * @throws Exception if the file could not be found or read.
+	 */
+	public byte[] getResourceAsBytes(String fileName) throws Exception
+	{
+		return cache.getBytes(getFileResourceAsPath(fileName));
+	}
+
+	/**
+	 * Return the raw content of a file through the shared cache. The content may be shared with other loaders and must not be modified.
+	 *
+	 * @param path Absolute path of the file.
+	 *
+	 * @return The bytes of the file.
+	 *
+	 * @throws IOException if the file could not be read.
+	 */
+	byte[] getFileAsBytes(Path path) throws IOException
+	{
+		return cache.getBytes(path);
 	}
 
 	public URI getFileResourceAsURL(String fileName) throws Exception
+	{
+		return getFileResourceAsPath(fileName).toUri();
+	}
+
+	private Path getFileResourceAsPath(String fileName) throws Exception
 	{
 		if (defaultRelPackagePath==null)
 			throw new IllegalArgumentException("defaultRelPackagePath may not be null");
@@ -131,18 +156,11 @@ public final class ResourceLoader
 		if (!hasSourcePaths())
 			throw new ConfigurationException("Processor option '"+ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.SOURCEPATH+"' not configured (required for looking up "+fileName+").");
 
-		List<Path> targetPaths = configuredSourcePaths.stream().map(p -> p.resolve(fileName)).collect(Collectors.toList());
-
-		for (Path targetPath: targetPaths)
-		{
-			if (Files.exists(targetPath) && Files.isRegularFile(targetPath) && Files.isReadable(targetPath))
-				return targetPath.toUri();
-
-			if (Files.exists(targetPath) && Files.isRegularFile(targetPath) && Files.isReadable(targetPath))
-				return targetPath.toUri();
-		}
+		Path targetPath = cache.findFile(configuredSourcePaths, fileName);
+		if (targetPath!=null)
+			return targetPath;
 
-		String allTargetPaths = targetPaths.stream().map(p -> "\""+p.toString()+"\"").collect(Collectors.joining(", "));
+		String allTargetPaths = configuredSourcePaths.stream().map(p -> "\""+p.resolve(fileName).toString()+"\"").collect(Collectors.joining(", "));
 		throw new ConfigurationException("Could not find file \""+fileName+"\" in any specified source path(s): "+allTargetPaths);
 	}
 
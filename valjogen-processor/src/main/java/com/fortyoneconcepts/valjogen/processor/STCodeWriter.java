@@ -3,7 +3,10 @@
 */
 package com.fortyoneconcepts.valjogen.processor;
 
-import java.util.Date;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Objects;
 import java.util.logging.Logger;
 
@@ -16,7 +19,8 @@ import com.fortyoneconcepts.valjogen.model.*;
  * Controller for StringTemplate 4 templates groups. Calls into the main.stg
  * template.
  *
- * Instancess class is NOT multi-thread safe across threads. Individual instances are needed for each thread.
+ * Instancess class is NOT multi-thread safe across threads. Individual instances are needed for each thread. Errors are collected
+ * per instance so several writers can share the same (cached) {@link STTemplates}.
  *
  * @author mmc
  */
@@ -30,24 +34,54 @@ public final class STCodeWriter
 	private final Clazz clazz;
 	private final STTemplates stTemplates;
 	private final Configuration cfg;
+	private final Deque<STException> stExceptions;
 
 	public STCodeWriter(Clazz clazz, Configuration cfg, STTemplates stTemplates)
 	{
 		this.stTemplates=stTemplates;
 		this.clazz=clazz;
 		this.cfg=cfg;
+		this.stExceptions=new ArrayDeque<STException>();
 	}
 
+	/**
+	 * Return list of exceptions that has occured during the last rendering by this writer.
+	 *
+	 * @return List of exceptions.
+	 */
+	public Deque<STException> exceptions()
+	{
+		return stExceptions;
+	}
+
+	/**
+	 * Render the class.
+	 *
+	 * @return The source code of the class.
+	 *
+	 * @throws Exception If rendering failed.
+	 */
 	public String outputClass() throws Exception
 	{
-		String result = null;
+		StringWriter writer = new StringWriter();
+		outputClass(writer);
+		return writer.toString();
+	}
 
+	/**
+	 * Render the class directly into a writer without building the source code in memory first.
+	 *
+	 * Nb. Output may have been partially written if rendering fails.
+	 *
+	 * @param writer Where to write the source code of the class.
+	 *
+	 * @throws Exception If rendering failed.
+	 */
+	public void outputClass(Writer writer) throws Exception
+	{
 		STGroup group = stTemplates.getSTGroup();
 
-		stTemplates.exceptions().clear();
-
-		group.registerModelAdaptor(Model.class, new STCustomModelAdaptor());
-		group.registerRenderer(Date.class, new STISODateRender());
+		stExceptions.clear();
 
 		ST st = group.getInstanceOf(mainTemplate);
 
@@ -58,13 +92,19 @@ public final class STCodeWriter
 	      throw new STException("Internal error loading templates : No output", e);
 		}
 
-		result = st.render(Objects.requireNonNull(cfg).getLocale(), cfg.getLineWidth());
+		// Same as ST.render but without the intermediate string.
+		AutoIndentWriter stWriter = new AutoIndentWriter(Objects.requireNonNull(writer));
+		stWriter.setLineWidth(Objects.requireNonNull(cfg).getLineWidth());
 
-		if (!stTemplates.exceptions().isEmpty())
-			throw stTemplates.exceptions().getFirst();
+		stTemplates.setRenderExceptions(stExceptions);
+		try {
+			st.write(stWriter, cfg.getLocale());
+		} finally {
+			stTemplates.setRenderExceptions(null);
+		}
 
-		if (result==null)
-			throw new STException("Template rendering error : No output");
+		if (!stExceptions.isEmpty())
+			throw stExceptions.getFirst();
 
 		if (cfg.isDebugStringTemplatesEnabled())
 		{
@@ -73,7 +113,5 @@ public final class STCodeWriter
 			STViz viz = st.inspect();
 			viz.waitForClose();
 		}
-
-		return result;
 	}
 }
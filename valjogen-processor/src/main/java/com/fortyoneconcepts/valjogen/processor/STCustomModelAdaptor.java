@@ -31,6 +31,22 @@
  */
 package com.fortyoneconcepts.valjogen.processor;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
 import org.stringtemplate.v4.Interpreter;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.misc.ObjectModelAdaptor;
@@ -47,6 +63,13 @@ import com.fortyoneconcepts.valjogen.model.Type;
  *  Type.instanceMember_xxx -&gt; {@link Type#hasInstanceMember}, where xxx is used as argument.
  *  Type.staticMember_xxx -&gt; {@link Type#hasStaticMember}, where xxx is used as argument.
  *
+ * Other properties are read using accessors that are compiled with {@link LambdaMetafactory} at first use of a (model class, property) pair, following
+ * the same get/is/has conventions as {@link ObjectModelAdaptor}. This avoids reflection in the render loop. Properties that can not be compiled (fields,
+ * methods of classes not visible to us etc.) are read by {@link ObjectModelAdaptor} as before.
+ *
+ * Magic property names are only parsed once and results for a type are remembered until {@link STCustomModelAdaptor#clearRenderCache()} is called at the
+ * end of a rendering (the model does not change while rendering). Instances are used by a single thread only like the STGroup they are registered in.
+ *
  * @author mmc
  *
  */
@@ -59,6 +82,96 @@ public class STCustomModelAdaptor extends ObjectModelAdaptor
 	public static final String magicHasInstanceMemberMethodPrefix="instanceMember";
 	public static final String magicHasStaticMemberMethodPrefix="staticMember";
 
+	/**
+	 * The kinds of magic properties in the order their prefixes are checked.
+	 */
+	private enum MagicKind
+	{
+		EXACTTYPE(magicExactTypeMethodPrefix) {
+			@Override
+			String toArgument(String name) { return name.replace('_', '.'); }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.isExactType(argument); }
+		},
+		OFTYPE(magicImplementsMethodPrefix) {
+			@Override
+			String toArgument(String name) { return name.replace('_', '.'); }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.isOfType(argument); }
+		},
+		INSTANCEMETHOD(magicHasInstanceMethodMethodPrefix) {
+			@Override
+			String toArgument(String name) { return STUtil.templateNameToMethodName(name); }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.hasInstanceMethod(argument); }
+		},
+		STATICMETHOD(magicHasStaticMethodMethodPrefix) {
+			@Override
+			String toArgument(String name) { return STUtil.templateNameToMethodName(name); }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.hasStaticMethod(argument); }
+		},
+		INSTANCEMEMBER(magicHasInstanceMemberMethodPrefix) {
+			@Override
+			String toArgument(String name) { return name; }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.hasInstanceMember(argument); }
+		},
+		STATICMEMBER(magicHasStaticMemberMethodPrefix) {
+			@Override
+			String toArgument(String name) { return name; }
+			@Override
+			boolean evaluate(Type type, String argument) { return type.hasStaticMember(argument); }
+		};
+
+		private final String prefix;
+
+		private MagicKind(String prefix)
+		{
+			this.prefix=prefix;
+		}
+
+		abstract String toArgument(String name);
+
+		abstract boolean evaluate(Type type, String argument);
+	}
+
+	/**
+	 * A parsed magic property name.
+	 */
+	private static final class MagicProperty
+	{
+		private final MagicKind kind;
+		private final String argument;
+
+		private MagicProperty(MagicKind kind, String argument)
+		{
+			this.kind=kind;
+			this.argument=argument;
+		}
+	}
+
+	private static final MagicProperty notMagic = new MagicProperty(null, null);
+
+	// Property names come from the templates so there are few of them and they can be shared by all adaptors.
+	private static final Map<String, MagicProperty> magicPropertiesByName = new ConcurrentHashMap<String, MagicProperty>();
+
+	// Marks properties that are read by ObjectModelAdaptor.
+	private static final Function<Object, Object> reflectiveAccessor = o -> null;
+
+	// Accessors are shared by all adaptors and released with the model classes.
+	private static final ClassValue<Map<String, Function<Object, Object>>> accessorsByClass = new ClassValue<Map<String, Function<Object, Object>>>() {
+		@Override
+		protected Map<String, Function<Object, Object>> computeValue(Class<?> type)
+		{
+			return new ConcurrentHashMap<String, Function<Object, Object>>();
+		}
+	};
+
+	private final static Logger LOGGER = Logger.getLogger(STCustomModelAdaptor.class.getName());
+
+	private final Map<Type, Map<String, Boolean>> renderResults = new IdentityHashMap<Type, Map<String, Boolean>>();
+
 	@Override
 	public Object getProperty(Interpreter interp, ST self, Object o, Object property, String propertyName)
 	{
@@ -75,45 +188,144 @@ public class STCustomModelAdaptor extends ObjectModelAdaptor
 		// Check for magic property references
 		if (com.fortyoneconcepts.valjogen.model.Type.class.isAssignableFrom(c))
 		{
-			com.fortyoneconcepts.valjogen.model.Type ot = (com.fortyoneconcepts.valjogen.model.Type)o;
-			if (propertyName.startsWith(magicExactTypeMethodPrefix)) {
-				String interfaceName = propertyName.substring(magicExactTypeMethodPrefix.length());
-				if (interfaceName.startsWith("_"))
-					interfaceName=interfaceName.substring(1);
-				interfaceName=interfaceName.replace('_', '.');
-				return ot.isExactType(interfaceName);
-			} else if (propertyName.startsWith(magicImplementsMethodPrefix)) {
-				String interfaceName = propertyName.substring(magicImplementsMethodPrefix.length());
-				if (interfaceName.startsWith("_"))
-					interfaceName=interfaceName.substring(1);
-				interfaceName=interfaceName.replace('_', '.');
-				return ot.isOfType(interfaceName);
-			} else if (propertyName.startsWith(magicHasInstanceMethodMethodPrefix)) {
-				String methodName = propertyName.substring(magicHasInstanceMethodMethodPrefix.length());
-				if (methodName.startsWith("_"))
-					methodName=methodName.substring(1);
-				methodName=STUtil.templateNameToMethodName(methodName);
-				return ot.hasInstanceMethod(methodName);
-			} else if (propertyName.startsWith(magicHasStaticMethodMethodPrefix)) {
-				String methodName = propertyName.substring(magicHasStaticMethodMethodPrefix.length());
-				if (methodName.startsWith("_"))
-					methodName=methodName.substring(1);
-				methodName=STUtil.templateNameToMethodName(methodName);
-				return ot.hasStaticMethod(methodName);
-			} else if (propertyName.startsWith(magicHasInstanceMemberMethodPrefix)) {
-				String memberName = propertyName.substring(magicHasInstanceMemberMethodPrefix.length());
-				if (memberName.startsWith("_"))
-					memberName=memberName.substring(1);
-				return ot.hasInstanceMember(memberName);
-			} else if (propertyName.startsWith(magicHasStaticMemberMethodPrefix)) {
-				String memberName = propertyName.substring(magicHasStaticMemberMethodPrefix.length());
-				if (memberName.startsWith("_"))
-					memberName=memberName.substring(1);
-				return ot.hasStaticMember(memberName);
+			MagicProperty magicProperty = magicPropertiesByName.computeIfAbsent(propertyName, STCustomModelAdaptor::parse);
+			if (magicProperty!=notMagic)
+			{
+				com.fortyoneconcepts.valjogen.model.Type ot = (com.fortyoneconcepts.valjogen.model.Type)o;
+				return renderResults.computeIfAbsent(ot, t -> new HashMap<String, Boolean>()).computeIfAbsent(propertyName, n -> magicProperty.kind.evaluate(ot, magicProperty.argument));
+			}
+		}
+
+		Function<Object, Object> accessor = accessorsByClass.get(c).computeIfAbsent(propertyName, n -> createAccessor(c, n));
+		if (accessor!=reflectiveAccessor)
+		{
+			// Like ObjectModelAdaptor, any exception from the getter (also checked exceptions passed on by the accessor) is reported as a missing property.
+			try {
+				return accessor.apply(o);
+			} catch (Exception e) {
+				return throwNoSuchProperty(c, propertyName, e);
 			}
 		}
 
 		// Fall back on default behavior for non-magic properties.
 		return super.getProperty(interp, self, o, property, propertyName);
 	}
+
+	/**
+	 * Forget results for types evaluated during the last rendering, so the models can be released.
+	 */
+	public void clearRenderCache()
+	{
+		renderResults.clear();
+	}
+
+	/**
+	 * Return if a property of a model class has been read using a compiled accessor.
+	 *
+	 * @param c The model class.
+	 * @param propertyName The name of the property.
+	 *
+	 * @return True if a compiled accessor exists.
+	 */
+	static boolean isCompiled(Class<?> c, String propertyName)
+	{
+		Function<Object, Object> accessor = accessorsByClass.get(c).get(propertyName);
+		return accessor!=null && accessor!=reflectiveAccessor;
+	}
+
+	/**
+	 * Compile a function that calls the getter of a property.
+	 *
+	 * @param c The model class.
+	 * @param propertyName The name of the property.
+	 *
+	 * @return The accessor or {@link STCustomModelAdaptor#reflectiveAccessor} if the property must be read by {@link ObjectModelAdaptor}.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> createAccessor(Class<?> c, String propertyName)
+	{
+		Member member = findMember(c, propertyName);
+		if (!(member instanceof Method))
+			return reflectiveAccessor;
+
+		Method method = findAccessibleMethod(c, member.getName());
+		if (method==null || Modifier.isStatic(method.getModifiers()))
+			return reflectiveAccessor;
+
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+					                                      MethodType.methodType(Object.class, Object.class),
+					                                      lookup.unreflect(method),
+					                                      MethodType.methodType(Object.class, method.getDeclaringClass()));
+			return (Function<Object, Object>)site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			LOGGER.fine(() -> "Using reflection for property "+propertyName+" of "+c.getName()+" due to "+e);
+			return reflectiveAccessor;
+		}
+	}
+
+	/**
+	 * Find a public method without parameters that is declared by a public class or interface of our class loader, starting with the class itself. The
+	 * method may be declared by a super type even if it is overridden (like for proxies and mocks) as the accessor calls it virtually.
+	 *
+	 * @param c The model class.
+	 * @param methodName The name of the method.
+	 *
+	 * @return The method or null if none found.
+	 */
+	private static Method findAccessibleMethod(Class<?> c, String methodName)
+	{
+		Deque<Class<?>> candidates = new ArrayDeque<Class<?>>();
+		candidates.add(c);
+		while (!candidates.isEmpty())
+		{
+			Class<?> candidate = candidates.removeFirst();
+			if (isAccessible(candidate))
+			{
+				try {
+					Method method = candidate.getMethod(methodName);
+					if (isAccessible(method.getDeclaringClass()))
+						return method;
+				} catch (NoSuchMethodException e) {
+					// Not declared by this type. Try the super types.
+				}
+			}
+
+			if (candidate.getSuperclass()!=null)
+				candidates.add(candidate.getSuperclass());
+			for (Class<?> interfaceClass : candidate.getInterfaces())
+				candidates.add(interfaceClass);
+		}
+		return null;
+	}
+
+	private static boolean isAccessible(Class<?> c)
+	{
+		for (Class<?> enclosing=c; enclosing!=null; enclosing=enclosing.getEnclosingClass())
+		{
+			if (!Modifier.isPublic(enclosing.getModifiers()))
+				return false;
+		}
+
+		try {
+			return Class.forName(c.getName(), false, STCustomModelAdaptor.class.getClassLoader())==c;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static MagicProperty parse(String propertyName)
+	{
+		for (MagicKind kind : MagicKind.values())
+		{
+			if (propertyName.startsWith(kind.prefix)) {
+				String name = propertyName.substring(kind.prefix.length());
+				if (name.startsWith("_"))
+					name=name.substring(1);
+				return new MagicProperty(kind, kind.toArgument(name));
+			}
+		}
+		return notMagic;
+	}
 }
@@ -0,0 +1,137 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.fortyoneconcepts.valjogen.model.Configuration;
+
+/**
+ * Compilation-scoped cache of loaded {@link STTemplates} so the build-in templates and any custom templates are only parsed once
+ * per compilation instead of once for each generated class.
+ *
+ * Entries are keyed by the resolved location of the custom template file (if any) and a hash of its content.
+ *
+ * When enabled by {@link com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys#WARMCACHE} a shared instance is kept in a static field, so later
+ * compilations in the same JVM (build daemons and IDEs) reuse the loaded templates. The shared instance is scoped to the class loader of the processor,
+ * holds at most a fixed number of entries (least recently used are removed first) and can be cleared by {@link STTemplateCache#clearShared()}. Changed
+ * custom templates get a new key as the key contains a hash of the content.
+ *
+ * @author mmc
+ */
+public final class STTemplateCache
+{
+	private final static Logger LOGGER = Logger.getLogger(STTemplateCache.class.getName());
+
+	private static final String defaultTemplatesKey = "";
+
+	private static STTemplateCache shared;
+
+	private final Map<String, STTemplates> templatesByKey;
+	private final int maxSize;
+
+	public STTemplateCache()
+	{
+		templatesByKey = new HashMap<String, STTemplates>();
+		maxSize = Integer.MAX_VALUE;
+	}
+
+	private STTemplateCache(int maxSize)
+	{
+		this.maxSize = maxSize;
+		templatesByKey = new LinkedHashMap<String, STTemplates>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, STTemplates> eldest)
+			{
+				return size()>maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Return the instance shared by all compilations in this JVM, creating it if needed.
+	 *
+	 * @param maxSize Maximum number of entries kept. A new instance is created if the size of the existing instance differ.
+	 *
+	 * @return The shared instance.
+	 */
+	public static synchronized STTemplateCache getShared(int maxSize)
+	{
+		if (shared==null || shared.maxSize!=maxSize)
+			shared=new STTemplateCache(maxSize);
+		return shared;
+	}
+
+	/**
+	 * Forget all templates kept between compilations.
+	 */
+	public static synchronized void clearShared()
+	{
+		shared=null;
+	}
+
+	/**
+	 * Return loaded templates for the specified configuration, either from this cache or by loading and adding them.
+	 *
+	 * @param resourceLoader Used for looking up any custom template file.
+	 * @param cfg The configuration for the class being generated.
+	 *
+	 * @return Loaded templates which may be shared with other writers.
+	 *
+	 * @throws Exception if templates could not be found or loaded.
+	 */
+	public synchronized STTemplates getTemplates(ResourceLoader resourceLoader, Configuration cfg) throws Exception
+	{
+		String key = getKey(resourceLoader, cfg);
+
+		STTemplates templates = templatesByKey.get(key);
+		if (templates==null)
+		{
+			templates = new STTemplates(resourceLoader, cfg);
+			templatesByKey.put(key, templates);
+		} else {
+			STTemplates.applyGlobalSettings(cfg);
+			LOGGER.fine(() -> "Reusing already loaded templates for key "+key);
+		}
+
+		return templates;
+	}
+
+	/**
+	 * Return the number of distinct template groups loaded by this cache.
+	 *
+	 * @return Number of cached entries.
+	 */
+	public synchronized int size()
+	{
+		return templatesByKey.size();
+	}
+
+	private static String getKey(ResourceLoader resourceLoader, Configuration cfg) throws Exception
+	{
+		String customTemplateFileName = cfg.getCustomJavaTemplateFileName();
+		if (customTemplateFileName==null)
+			return defaultTemplatesKey;
+
+		URI uri = resourceLoader.getFileResourceAsURL(customTemplateFileName);
+		byte[] content = resourceLoader.getResourceAsBytes(customTemplateFileName);
+
+		return uri.toString()+"#"+toHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length*2);
+		for (byte b : bytes)
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+}
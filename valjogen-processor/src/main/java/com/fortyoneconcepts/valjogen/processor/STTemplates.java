@@ -3,28 +3,40 @@
 */
 package com.fortyoneconcepts.valjogen.processor;
 
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URL;
-import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import org.stringtemplate.v4.ModelAdaptor;
 import org.stringtemplate.v4.STErrorListener;
 import org.stringtemplate.v4.STGroup;
 import org.stringtemplate.v4.STGroupFile;
 import org.stringtemplate.v4.misc.STMessage;
 
 import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.model.Model;
 
 /**
  * Loads and holds STGroup file(s) according to configuration and offer inspection methods about the content.
  * template.
  *
+ * Instances are loaded when constructed and may be shared by several {@link STCodeWriter} instances, also across threads (see {@link STTemplateCache}).
+ * Errors that occur while rendering are kept by the individual writer and not by this class.
+ *
+ * Loaded groups are owned by a thread at a time. Groups of threads that have ended (like render threads of an earlier compilation when instances are kept
+ * between compilations) are taken over by new threads instead of loading the templates again.
+ *
  * @author mmc
  */
 public final class STTemplates
@@ -41,35 +53,32 @@ public final class STTemplates
 	private static final String method_prefix="/method_";
 
 	private final Deque<STException> stExceptions;
-	private final STGroup group;
+	private final ThreadLocal<Deque<STException>> renderExceptions;
+	private final URL customTemplateURL;
+	private final ThreadLocal<STGroup> groups;
+	private final Queue<LoadedGroup> loadedGroups;
 	private final Set<String> templateMethodNames;
 
 	public STTemplates(ResourceLoader resourceLoader, Configuration cfg) throws Exception
 	{
-		stExceptions = new ArrayDeque<STException>();
+		stExceptions = new ConcurrentLinkedDeque<STException>();
+		renderExceptions = new ThreadLocal<Deque<STException>>();
 
-		STGroup.verbose = LOGGER.isLoggable(Level.FINE);
-		STGroup.trackCreationEvents = cfg.isDebugStringTemplatesEnabled();
-
-		STGroup defaultGroup = new STGroupFile(mainTemplateFile, delimiterStartChar, delimiterStopChar);
+		applyGlobalSettings(cfg);
 
 		String customTemplateFileName = cfg.getCustomJavaTemplateFileName();
-
-
 		if (customTemplateFileName!=null)
 		{
 			URI uri = resourceLoader.getFileResourceAsURL(customTemplateFileName);
-			URL url = uri.toURL();
-
-			group = new STGroupFile(url, templateFilesEncoding, delimiterStartChar, delimiterStopChar);
-			group.importTemplates(defaultGroup);
-
-			LOGGER.info(() -> "Added custom sub-template: "+customTemplateFileName+" from "+url.toString());
+			customTemplateURL = uri.toURL();
 		} else {
-			group = defaultGroup;
+			customTemplateURL = null;
 		}
 
-		group.setListener(myErrorListener);
+		loadedGroups = new ConcurrentLinkedQueue<LoadedGroup>();
+		groups = ThreadLocal.withInitial(this::getOrLoadGroup);
+
+		STGroup group = groups.get();
 
 		Set<String> templateNames = getAllTemplateNames(group);
 
@@ -81,12 +90,92 @@ public final class STTemplates
 	}
 
 	/**
-	 * Return the loaded STGroup instance that can be used to generate output.
+	 * Update the global StringTemplate settings that depends on the configuration. Needed before using an already loaded instance
+	 * as the settings are static in StringTemplate.
 	 *
-	 * @return STGroup instance
+	 * @param cfg The configuration for the class being generated.
+	 */
+	static void applyGlobalSettings(Configuration cfg)
+	{
+		STGroup.verbose = LOGGER.isLoggable(Level.FINE);
+		STGroup.trackCreationEvents = cfg.isDebugStringTemplatesEnabled();
+	}
+
+	/**
+	 * Return the loaded STGroup instance that can be used to generate output. StringTemplate groups are not safe for concurrent use
+	 * so each thread gets its own instance which is loaded on first use.
+	 *
+	 * @return STGroup instance for the calling thread.
 	 */
 	public STGroup getSTGroup()
 	{
+		return groups.get();
+	}
+
+	/**
+	 * A loaded group and the thread that uses it.
+	 */
+	private static final class LoadedGroup
+	{
+		private final STGroup group;
+		private WeakReference<Thread> owner;
+
+		private LoadedGroup(STGroup group, Thread owner)
+		{
+			this.group=group;
+			this.owner=new WeakReference<Thread>(owner);
+		}
+
+		private synchronized boolean claimIfOwnerEnded(Thread newOwner)
+		{
+			Thread currentOwner = owner.get();
+			if (currentOwner!=null && currentOwner.isAlive())
+				return false;
+
+			owner=new WeakReference<Thread>(newOwner);
+			return true;
+		}
+	}
+
+	private STGroup getOrLoadGroup()
+	{
+		Thread thread = Thread.currentThread();
+		for (LoadedGroup loadedGroup : loadedGroups)
+		{
+			if (loadedGroup.claimIfOwnerEnded(thread))
+			{
+				LOGGER.fine(() -> "Reusing templates loaded by a thread that has ended");
+				return loadedGroup.group;
+			}
+		}
+
+		STGroup group = loadGroup();
+		loadedGroups.add(new LoadedGroup(group, thread));
+		return group;
+	}
+
+	private STGroup loadGroup()
+	{
+		STGroup defaultGroup = new STGroupFile(mainTemplateFile, delimiterStartChar, delimiterStopChar);
+
+		STGroup group;
+		if (customTemplateURL!=null)
+		{
+			group = new STGroupFile(customTemplateURL, templateFilesEncoding, delimiterStartChar, delimiterStopChar);
+			group.importTemplates(defaultGroup);
+
+			LOGGER.info(() -> "Added custom sub-template from "+customTemplateURL.toString());
+		} else {
+			group = defaultGroup;
+		}
+
+		group.setListener(myErrorListener);
+
+		group.registerModelAdaptor(Model.class, new STCustomModelAdaptor());
+		group.registerRenderer(Date.class, new STISODateRender());
+
+		loadAll(group);
+
 		return group;
 	}
 
@@ -101,9 +190,29 @@ public final class STTemplates
 	}
 
 	/**
-	 * Return list of exceptions that has occured during processing of string templates.
+	 * Route errors reported while rendering on the current thread to the specified list instead of the list of load errors.
 	 *
-	 * @return List of normal template method names.
+	 * @param exceptions The list of the current rendering or null when rendering has completed. Results remembered while rendering are forgotten then.
+	 */
+	void setRenderExceptions(Deque<STException> exceptions)
+	{
+		if (exceptions!=null)
+			renderExceptions.set(exceptions);
+		else {
+			renderExceptions.remove();
+
+			// Results remembered while rendering refer to the model that has now been rendered.
+			ModelAdaptor adaptor = getSTGroup().getModelAdaptor(Model.class);
+			if (adaptor instanceof STCustomModelAdaptor)
+				((STCustomModelAdaptor)adaptor).clearRenderCache();
+		}
+	}
+
+	/**
+	 * Return list of exceptions that has occured while loading the string templates. Errors that occur during rendering are available
+	 * from {@link STCodeWriter#exceptions()}.
+	 *
+	 * @return List of exceptions.
 	 */
 	public Deque<STException> exceptions()
 	{
@@ -135,6 +244,13 @@ public final class STTemplates
 		return sb.toString();
 	}*/
 
+	private static void loadAll(STGroup group)
+	{
+		group.load();
+		for (STGroup importGroup : group.getImportedGroups())
+			loadAll(importGroup);
+	}
+
 	private static Set<String> getAllTemplateNames(STGroup group)
 	{
 		HashSet<String> names = new HashSet<>(group.getTemplateNames());
@@ -147,37 +263,34 @@ public final class STTemplates
 	 * Errror listener for string templates - registers and throws exceptions.
 	 */
 	private final STErrorListener myErrorListener = new STErrorListener()  {
-		private String reportSTMsg(STMessage msg) {
+		private STException register(STMessage msg) {
 			LOGGER.severe(() -> msg.toString());
-			return msg.toString();
+			STException exception = new STException(msg.toString());
+			Deque<STException> currentRenderExceptions = renderExceptions.get();
+			if (currentRenderExceptions!=null)
+				currentRenderExceptions.add(exception);
+			else stExceptions.add(exception);
+			return exception;
 		}
 
 		@Override
 		public void runTimeError(STMessage msg) {
-			STException exception = new STException(reportSTMsg(msg));
-			stExceptions.add(exception);
-			throw exception;
+			throw register(msg);
 		}
 
 		@Override
 		public void compileTimeError(STMessage msg) {
-			STException exception = new STException(reportSTMsg(msg));
-			stExceptions.add(exception);
-			throw exception;
+			throw register(msg);
 		}
 
 		@Override
 		public void IOError(STMessage msg) {
-			STException exception = new STException(reportSTMsg(msg));
-			stExceptions.add(exception);
-			throw exception;
+			throw register(msg);
 		}
 
 		@Override
 		public void internalError(STMessage msg) {
-			STException exception = new STException(reportSTMsg(msg));
-			stExceptions.add(exception);
-			throw exception;
+			throw register(msg);
 		}
 	};
 }
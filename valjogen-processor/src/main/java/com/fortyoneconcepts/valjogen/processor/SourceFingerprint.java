@@ -0,0 +1,390 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+
+import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
+
+/**
+ * Computes a fingerprint of everything that affects the source generated for an interface, so previously generated source can be reused
+ * when nothing has changed (see {@link GenerationCache}).
+ *
+ * The fingerprint covers the members and resolved supertypes of the interface, the base class and extra interfaces, the member signatures and
+ * supertypes of all types used in member signatures (as these are part of the model too), the effective configuration and the content of templates
+ * and header files. Javadoc (which is copied to the generated
+ * source) is covered by the content of the source files that declare the types.
+ *
+ * @author mmc
+ */
+final class SourceFingerprint
+{
+	private static final String mainTemplateFile = "templates/main.stg";
+	private static final Pattern templateImportPattern = Pattern.compile("^\\s*import\\s+\"([^\"]+)\"", Pattern.MULTILINE);
+
+	private static volatile String processorHash;
+
+	private final ProcessingEnvironment processingEnv;
+	private final Types types;
+	private final Elements elements;
+	private final ResourceLoader resourceLoader;
+	private final MessageDigest digest;
+	private final Set<String> visitedMembers;
+	private final Set<String> visitedSupertypes;
+	private final Set<URI> visitedSourceFiles;
+	private final SourceFileLookup sourceFiles;
+
+	private SourceFingerprint(ProcessingEnvironment processingEnv, ResourceLoader resourceLoader) throws Exception
+	{
+		this.processingEnv=processingEnv;
+		this.types=processingEnv.getTypeUtils();
+		this.elements=processingEnv.getElementUtils();
+		this.resourceLoader=resourceLoader;
+		this.digest=MessageDigest.getInstance("SHA-256");
+		this.visitedMembers=new HashSet<String>();
+		this.visitedSupertypes=new HashSet<String>();
+		this.visitedSourceFiles=new HashSet<URI>();
+		this.sourceFiles=SourceFileLookup.create(processingEnv);
+	}
+
+	/**
+	 * Compute a fingerprint for an interface.
+	 *
+	 * @param processingEnv The processing environment of javac.
+	 * @param interfaceElement The interface to generate a class for.
+	 * @param configuration The configuration for the interface.
+	 * @param resourceLoader Used to find template and header files.
+	 *
+	 * @return Hex-encoded fingerprint.
+	 *
+	 * @throws Exception If a file could not be read.
+	 */
+	public static String create(ProcessingEnvironment processingEnv, TypeElement interfaceElement, Configuration configuration, ResourceLoader resourceLoader) throws Exception
+	{
+		SourceFingerprint fingerprint = new SourceFingerprint(processingEnv, resourceLoader);
+		Elements elements = processingEnv.getElementUtils();
+
+		fingerprint.add(getProcessorHash());
+		fingerprint.addConfiguration(configuration);
+		fingerprint.addFile(resourceLoader, configuration.getCustomJavaTemplateFileName());
+		fingerprint.addFile(resourceLoader, configuration.getHeaderFileName());
+
+		String packageName = elements.getPackageOf(interfaceElement).getQualifiedName().toString();
+
+		fingerprint.addTypeWithMembers(interfaceElement);
+
+		String baseClazzName = configuration.getBaseClazzName();
+		fingerprint.addNamedTypeWithMembers((baseClazzName==null || baseClazzName.isEmpty()) ? ConfigurationDefaults.RootObject : baseClazzName, packageName);
+
+		for (String extraInterfaceName : configuration.getExtraInterfaces())
+			fingerprint.addNamedTypeWithMembers(extraInterfaceName, packageName);
+
+		return toHex(fingerprint.digest.digest());
+	}
+
+	private void add(String text)
+	{
+		digest.update(text.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+	}
+
+	private void addConfiguration(Configuration configuration)
+	{
+		// The execution date is part of the default generated annotation. A date that is the time of compilation must not prevent reuse, but
+		// a fixed date from OUTPUTEPOCH or SOURCE_DATE_EPOCH is kept so reproducible output never reuses source generated with another date.
+		String executionDate = configuration.getOutputEpoch()<0 ? Configuration.formatExecutionDate(configuration.getExecutionDate()) : null;
+
+		for (Map.Entry<String, Object> entry : configuration.getOutputValues().entrySet())
+		{
+			Object result = entry.getValue();
+			String value = (result instanceof Object[]) ? Arrays.toString((Object[])result) : String.valueOf(result);
+			add(entry.getKey()+"="+(executionDate!=null ? value.replace(executionDate, "") : value));
+		}
+	}
+
+	private void addFile(ResourceLoader resourceLoader, String fileName) throws Exception
+	{
+		if (fileName==null)
+			return;
+
+		add(fileName);
+		digest.update(resourceLoader.getResourceAsBytes(fileName));
+	}
+
+	private void addNamedTypeWithMembers(String name, String packageName) throws Exception
+	{
+		String rawName = NamesUtil.stripGenericQualifier(name);
+
+		TypeElement element = elements.getTypeElement(rawName);
+		if (element==null && !packageName.isEmpty())
+			element = elements.getTypeElement(packageName+"."+rawName);
+
+		add("type "+name);
+		if (element!=null)
+			addTypeWithMembers(element);
+	}
+
+	private void addTypeWithMembers(TypeElement element) throws Exception
+	{
+		String name = element.getQualifiedName().toString();
+		if (!visitedMembers.add(name))
+			return;
+
+		addSupertypes(element);
+		addJavaDoc(element);
+
+		for (Element member : element.getEnclosedElements())
+		{
+			add(member.getKind()+" "+member.getModifiers()+" "+member.getSimpleName()+" "+member.asType()+" "+member.getAnnotationMirrors());
+
+			if (member instanceof ExecutableElement)
+			{
+				ExecutableElement executable = (ExecutableElement)member;
+				for (VariableElement parameter : executable.getParameters()) {
+					add(parameter.getSimpleName()+" "+parameter.getAnnotationMirrors());
+					addSupertypes(parameter.asType());
+				}
+				addSupertypes(executable.getReturnType());
+			} else {
+				addSupertypes(member.asType());
+			}
+		}
+
+		for (TypeMirror superType : types.directSupertypes(element.asType()))
+		{
+			Element superElement = types.asElement(superType);
+			if (superElement instanceof TypeElement)
+				addTypeWithMembers((TypeElement)superElement);
+		}
+	}
+
+	/**
+	 * Add the javadoc of a type and its members. Looking up javadoc through {@link Elements#getDocComment(Element)} searches the source file for
+	 * each member, which is quadratic in the number of members, so the content of the source file declaring the type is added once instead. Types
+	 * read from class files have no javadoc. If the javac tree API is not available, the javadoc is looked up for each member.
+	 *
+	 * @param element The type to add the javadoc of.
+	 * @throws Exception If the source file of the type could not be found or read.
+	 */
+	private void addJavaDoc(TypeElement element) throws Exception
+	{
+		Element outermostElement = element;
+		while (outermostElement.getEnclosingElement() instanceof TypeElement)
+			outermostElement = outermostElement.getEnclosingElement();
+
+		if (sourceFiles==null)
+		{
+			add(String.valueOf(elements.getDocComment(element)));
+			for (Element member : element.getEnclosedElements())
+				add(String.valueOf(elements.getDocComment(member)));
+			return;
+		}
+
+		JavaFileObject sourceFile = sourceFiles.find(outermostElement);
+		if (sourceFile==null || !visitedSourceFiles.add(sourceFile.toUri()))
+			return;
+
+		URI uri = sourceFile.toUri();
+		add("source "+uri);
+		if ("file".equals(uri.getScheme()))
+			digest.update(resourceLoader.getFileAsBytes(Paths.get(uri)));
+		else add(sourceFile.getCharContent(true).toString());
+	}
+
+	private void addSupertypes(TypeMirror type)
+	{
+		if (type.getKind()==TypeKind.ARRAY) {
+			addSupertypes(((javax.lang.model.type.ArrayType)type).getComponentType());
+		} else if (type.getKind()==TypeKind.DECLARED) {
+			for (TypeMirror typeArg : ((DeclaredType)type).getTypeArguments())
+				addSupertypes(typeArg);
+
+			Element element = types.asElement(type);
+			if (element instanceof TypeElement)
+				addSupertypes((TypeElement)element);
+		}
+	}
+
+	private void addSupertypes(TypeElement element)
+	{
+		String name = element.getQualifiedName().toString();
+		if (!visitedSupertypes.add(name))
+			return;
+
+		add(element.getKind()+" "+element.getModifiers()+" "+name+" "+element.getTypeParameters()+" "+element.getAnnotationMirrors());
+
+		for (Element member : element.getEnclosedElements())
+		{
+			if (member.getKind().isField() || member instanceof ExecutableElement)
+				add("member "+member.getKind()+" "+member.getModifiers()+" "+member.getSimpleName()+" "+member.asType());
+		}
+
+		List<? extends TypeMirror> superTypes = types.directSupertypes(element.asType());
+		for (TypeMirror superType : superTypes)
+		{
+			add("super "+superType);
+			Element superElement = types.asElement(superType);
+			if (superElement instanceof TypeElement)
+				addSupertypes((TypeElement)superElement);
+		}
+	}
+
+	/**
+	 * Finds the source files of elements with the javac tree API. The API is not available when compiling the processor so it is used through reflection.
+	 */
+	private static final class SourceFileLookup
+	{
+		private final Object trees;
+		private final Method getPath;
+		private final Method getCompilationUnit;
+		private final Method getSourceFile;
+
+		private SourceFileLookup(ProcessingEnvironment processingEnv) throws ReflectiveOperationException
+		{
+			ClassLoader loader = processingEnv.getClass().getClassLoader();
+			Class<?> treesClass = Class.forName("com.sun.source.util.Trees", true, loader);
+
+			trees = treesClass.getMethod("instance", ProcessingEnvironment.class).invoke(null, processingEnv);
+			getPath = treesClass.getMethod("getPath", Element.class);
+			getCompilationUnit = Class.forName("com.sun.source.util.TreePath", true, loader).getMethod("getCompilationUnit");
+			getSourceFile = Class.forName("com.sun.source.tree.CompilationUnitTree", true, loader).getMethod("getSourceFile");
+		}
+
+		/**
+		 * @param processingEnv The processing environment to look up source files in.
+		 * @return A lookup or null if the processing environment is not the one of javac.
+		 */
+		private static SourceFileLookup create(ProcessingEnvironment processingEnv)
+		{
+			try {
+				return new SourceFileLookup(processingEnv);
+			} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+				return null;
+			}
+		}
+
+		/**
+		 * @param element A top-level element.
+		 * @return The source file that declares a top-level element or null if the element was read from a class file.
+		 * @throws ReflectiveOperationException If the javac tree API could not be called.
+		 */
+		private JavaFileObject find(Element element) throws ReflectiveOperationException
+		{
+			Object path = getPath.invoke(trees, element);
+			return path!=null ? (JavaFileObject)getSourceFile.invoke(getCompilationUnit.invoke(path)) : null;
+		}
+	}
+
+	/**
+	 * Returns a hash of the processor itself, covering the build-in templates and the content of the processor code.
+	 *
+	 * @return The hash as a hex string.
+	 * @throws Exception If the templates or the processor code could not be read.
+	 */
+	private static String getProcessorHash() throws Exception
+	{
+		String result = processorHash;
+		if (result==null)
+		{
+			MessageDigest processorDigest = MessageDigest.getInstance("SHA-256");
+
+			String mainTemplate = new String(readResource(mainTemplateFile), StandardCharsets.UTF_8);
+			processorDigest.update(mainTemplate.getBytes(StandardCharsets.UTF_8));
+
+			Matcher matcher = templateImportPattern.matcher(mainTemplate);
+			while (matcher.find())
+				processorDigest.update(readResource(mainTemplateFile.substring(0, mainTemplateFile.lastIndexOf('/')+1)+matcher.group(1)));
+
+			CodeSource codeSource = SourceFingerprint.class.getProtectionDomain().getCodeSource();
+			if (codeSource!=null && codeSource.getLocation()!=null && "file".equals(codeSource.getLocation().getProtocol()))
+				addCodeLocation(processorDigest, Paths.get(codeSource.getLocation().toURI()));
+
+			result = processorHash = toHex(processorDigest.digest());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Add the content of the processor code to a digest. The size and timestamp of the code location are not enough, as the processor may run from a
+	 * directory of classes whose size and timestamp does not change when the files in it do.
+	 *
+	 * @param digest The digest to add to.
+	 * @param location The jar file or directory that the processor is loaded from.
+	 * @throws IOException If the code could not be read.
+	 */
+	static void addCodeLocation(MessageDigest digest, Path location) throws IOException
+	{
+		if (!Files.isDirectory(location)) {
+			digest.update(Files.readAllBytes(location));
+			return;
+		}
+
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(location)) {
+			files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+
+		for (Path file : files)
+		{
+			digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)0);
+			digest.update(Files.readAllBytes(file));
+		}
+	}
+
+	private static byte[] readResource(String name) throws IOException
+	{
+		try (InputStream in = SourceFingerprint.class.getClassLoader().getResourceAsStream(name))
+		{
+			if (in==null)
+				throw new IOException("Could not find resource "+name);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count=in.read(buffer))>0)
+				out.write(buffer, 0, count);
+			return out.toByteArray();
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(bytes.length*2);
+		for (byte b : bytes)
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,218 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the wall time spend in each processing phase for each annotated interface together with some statistics about the size of the model, so
+ * slow interfaces can be found. See {@link com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys#TIMINGREPORT}.
+ *
+ * Records are created and reported on the javac thread. The times of a single record may be added from a render thread as long as the record is only read
+ * after the rendering has been handed back to the javac thread.
+ *
+ * @author mmc
+ */
+final class TimingReport
+{
+	private static final String jsonSuffix = ".json";
+	private static final int summaryCount = 5;
+
+	/**
+	 * Phases of processing an interface in the order they are done.
+	 */
+	enum Phase
+	{
+		CONFIGURATION, RESOURCELOADER, TEMPLATES, MODEL, RENDER, WRITE;
+	}
+
+	/**
+	 * Times and model statistics for a single interface.
+	 */
+	static final class Record
+	{
+		private final String interfaceName;
+		private final long[] nanos;
+		private int memberCount;
+		private int methodCount;
+		private int typeCount;
+
+		private Record(String interfaceName)
+		{
+			this.interfaceName=interfaceName;
+			this.nanos=new long[Phase.values().length];
+		}
+
+		/**
+		 * Add time to a phase.
+		 *
+		 * @param phase The phase to add time to.
+		 * @param startNanos Start of the time to add as reported by {@link System#nanoTime()}.
+		 *
+		 * @return The end of the added time that can be used as start of the next phase.
+		 */
+		long add(Phase phase, long startNanos)
+		{
+			long endNanos = System.nanoTime();
+			nanos[phase.ordinal()]+=endNanos-startNanos;
+			return endNanos;
+		}
+
+		String getInterfaceName()
+		{
+			return interfaceName;
+		}
+
+		long get(Phase phase)
+		{
+			return nanos[phase.ordinal()];
+		}
+
+		void setModelStatistics(int memberCount, int methodCount, int typeCount)
+		{
+			this.memberCount=memberCount;
+			this.methodCount=methodCount;
+			this.typeCount=typeCount;
+		}
+
+		long getTotalNanos()
+		{
+			long total = 0;
+			for (long n : nanos)
+				total+=n;
+			return total;
+		}
+	}
+
+	private final String resourceName;
+	private final Map<String, Record> records;
+
+	/**
+	 * Create a record that is not part of any report, so times can be added unconditionally.
+	 *
+	 * @param interfaceName Qualified name of the interface.
+	 *
+	 * @return A new record.
+	 */
+	static Record createUnreportedRecord(String interfaceName)
+	{
+		return new Record(interfaceName);
+	}
+
+	/**
+	 * Create an empty report.
+	 *
+	 * @param resourceName Name of the resource the report should be written to. Also decides the format.
+	 */
+	TimingReport(String resourceName)
+	{
+		this.resourceName=resourceName;
+		this.records=new LinkedHashMap<String, Record>();
+	}
+
+	String getResourceName()
+	{
+		return resourceName;
+	}
+
+	/**
+	 * Get the record of an interface, creating it if it does not exist. Must be called on the javac thread.
+	 *
+	 * @param interfaceName Qualified name of the interface.
+	 *
+	 * @return The record to add times to.
+	 */
+	Record getRecord(String interfaceName)
+	{
+		return records.computeIfAbsent(interfaceName, n -> new Record(n));
+	}
+
+	boolean isEmpty()
+	{
+		return records.isEmpty();
+	}
+
+	/**
+	 * Write the report as JSON or CSV depending on the resource name.
+	 *
+	 * @param writer Where to write the report.
+	 */
+	void write(Writer writer)
+	{
+		PrintWriter out = new PrintWriter(writer);
+		if (resourceName.toLowerCase(Locale.ROOT).endsWith(jsonSuffix))
+			writeJson(out);
+		else writeCsv(out);
+		out.flush();
+	}
+
+	/**
+	 * @return One line summary with the slowest interfaces first.
+	 */
+	String getSummary()
+	{
+		List<Record> slowest = getSlowest();
+		long totalNanos = slowest.stream().mapToLong(r -> r.getTotalNanos()).sum();
+
+		String slowestText = slowest.stream().limit(summaryCount).map(r -> r.interfaceName+" ("+toMillis(r.getTotalNanos())+" ms)").collect(Collectors.joining(", "));
+
+		return String.format(ProcessorMessages.TimingReportSummary, records.size(), toMillis(totalNanos), resourceName, slowestText);
+	}
+
+	private List<Record> getSlowest()
+	{
+		List<Record> sorted = new ArrayList<Record>(records.values());
+		sorted.sort(Comparator.comparingLong((Record r) -> r.getTotalNanos()).reversed());
+		return sorted;
+	}
+
+	private void writeCsv(PrintWriter out)
+	{
+		out.print("interface");
+		for (Phase phase : Phase.values())
+			out.print(","+phase.name().toLowerCase(Locale.ROOT)+"Nanos");
+		out.println(",totalNanos,members,methods,types");
+
+		for (Record r : getSlowest())
+		{
+			out.print(r.interfaceName);
+			for (Phase phase : Phase.values())
+				out.print(","+r.get(phase));
+			out.println(","+r.getTotalNanos()+","+r.memberCount+","+r.methodCount+","+r.typeCount);
+		}
+	}
+
+	private void writeJson(PrintWriter out)
+	{
+		out.println("[");
+
+		List<Record> slowest = getSlowest();
+		for (int i=0; i<slowest.size(); ++i)
+		{
+			Record r = slowest.get(i);
+
+			out.print("  { \"interface\": \""+r.interfaceName+"\"");
+			for (Phase phase : Phase.values())
+				out.print(", \""+phase.name().toLowerCase(Locale.ROOT)+"Nanos\": "+r.get(phase));
+			out.print(", \"totalNanos\": "+r.getTotalNanos()+", \"members\": "+r.memberCount+", \"methods\": "+r.methodCount+", \"types\": "+r.typeCount+" }");
+			out.println(i<slowest.size()-1 ? "," : "");
+		}
+
+		out.println("]");
+	}
+
+	private static long toMillis(long nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -56,4 +56,9 @@ public final class TypePool
 		String key = getKey(type.getClazz(), typeName);
 		types.putIfAbsent(key, type);
 	}
+
+	public int size()
+	{
+		return types.size();
+	}
 }
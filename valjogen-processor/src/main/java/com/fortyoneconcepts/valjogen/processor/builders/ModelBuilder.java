@@ -85,6 +85,9 @@ public final class ModelBuilder
 	private final STTemplates templates;
 	private final NoType noType;
 
+	private Map<String, List<String>> memberAnnotationsByName; // Lazy initialized.
+	private final List<Method> unresolvedJavaDocMethods = new ArrayList<Method>();
+
 	/**
 	 * Contains various data that streams need to manipulate and this needs to be accessed by reference.
 	 *
@@ -128,6 +131,23 @@ public final class ModelBuilder
 	 * @param templates StringTemplate templates holder used to reflect on what methods are supplied.
 	 */
 	public ModelBuilder(Types types, Elements elements, DiagnosticMessageConsumer errorConsumer, TypeElement masterInterfaceElement, Configuration configuration, ResourceLoader resourceLoader, STTemplates templates)
+	{
+	  this(types, elements, errorConsumer, masterInterfaceElement, configuration, resourceLoader, templates, new TypeSymbolTable(types));
+	}
+
+	/**
+	 * Create an instance of this builder that can build the specified class and all dependencies.
+	 *
+	 * @param types Types helper from javax.lang.model
+	 * @param elements Elements helper from jacax.lang.model
+	 * @param errorConsumer Where to send errors.
+	 * @param masterInterfaceElement The interface that has been selected for code generation (by an annotation).
+	 * @param configuration Descripes the user-selected details about what should be generated (combination of annotation(s) and annotation processor setup).
+	 * @param resourceLoader What to call to get resource files
+	 * @param templates StringTemplate templates holder used to reflect on what methods are supplied.
+	 * @param symbolTable Structural information about types shared by all builders in the current processing round.
+	 */
+	public ModelBuilder(Types types, Elements elements, DiagnosticMessageConsumer errorConsumer, TypeElement masterInterfaceElement, Configuration configuration, ResourceLoader resourceLoader, STTemplates templates, TypeSymbolTable symbolTable)
 	{
       this.types=types;
 	  this.elements=elements;
@@ -137,7 +157,27 @@ public final class ModelBuilder
 	  this.resourceLoader=resourceLoader;
 	  this.templates=templates;
 	  this.noType=new NoType();
-	  this.typeBuilder=new TypeBuilder(types, elements, errorConsumer, masterInterfaceElement, configuration, noType);
+	  this.typeBuilder=new TypeBuilder(types, elements, errorConsumer, masterInterfaceElement, configuration, noType, symbolTable);
+	}
+
+	/**
+	 * @return Number of types in the pool of types created for the model.
+	 */
+	public int getTypeCount()
+	{
+		return typeBuilder.getTypeCount();
+	}
+
+	/**
+	 * Resolve members and methods of detailed types (like base classes) and javadoc of methods that are otherwise resolved when first accessed. Must
+	 * be called before the model is used by other threads.
+	 */
+	public void resolveContent()
+	{
+		typeBuilder.resolveContent();
+
+		unresolvedJavaDocMethods.forEach(Method::getJavaDoc);
+		unresolvedJavaDocMethods.clear();
 	}
 
 	/**
@@ -185,7 +225,7 @@ public final class ModelBuilder
 		List<DeclaredType> interfaceDeclaredMirrorTypes = typeBuilder.createInterfaceDeclaredTypes(masterInterfaceDecl, ekstraInterfaceNames, classPackage);
 
 		List<DeclaredType> allInterfaceDeclaredMirrorTypes = interfaceDeclaredMirrorTypes.stream().flatMap(ie -> typeBuilder.getDeclaredInterfacesWithAscendents(ie)).collect(Collectors.toList());
-		List<DeclaredType> superTypesWithAscendantsMirrorTypes = concat(allInterfaceDeclaredMirrorTypes.stream(), allBaseClassDeclaredMirrorTypes.stream()).distinct().sorted((s1,s2) -> s1.toString().compareTo(s2.toString())).collect(Collectors.toList());
+		List<DeclaredType> superTypesWithAscendantsMirrorTypes = concat(allInterfaceDeclaredMirrorTypes.stream(), allBaseClassDeclaredMirrorTypes.stream()).distinct().sorted((s1,s2) -> typeBuilder.getTypeName(s1).compareTo(typeBuilder.getTypeName(s2))).collect(Collectors.toList());
 
         // Step 2 - Init type part of clzzz:
 		List<? extends TypeMirror> typeArgs = masterInterfaceDecl.getTypeArguments();
@@ -195,7 +235,7 @@ public final class ModelBuilder
 		BasicClazz baseClazzType = (BasicClazz)typeBuilder.createType(clazz, baseClazzDeclaredMirrorType, DetailLevel.High);
 
 		List<Type> interfaceTypes = interfaceDeclaredMirrorTypes.stream().map(ie -> typeBuilder.createType(clazz, ie, DetailLevel.Low)).collect(Collectors.toList());
-		Set<Type> superTypesWithAscendants = superTypesWithAscendantsMirrorTypes.stream().map(ie -> typeBuilder.createType(clazz, ie, DetailLevel.Low)).collect(Collectors.toSet());
+		Set<Type> superTypesWithAscendants = superTypesWithAscendantsMirrorTypes.stream().map(ie -> typeBuilder.createType(clazz, ie, DetailLevel.Low)).collect(Collectors.toCollection(LinkedHashSet::new));
 
 		clazz.initType(baseClazzType, interfaceTypes, superTypesWithAscendants, typeArgTypes);
 
@@ -207,22 +247,20 @@ public final class ModelBuilder
 		final StatusHolder statusHolder = new StatusHolder();
 
 		// Collect all members, property methods and non-property methods from interfaces paired with the interface they belong to:
-		List<ExecutableElementInfo> executableElements = superTypesWithAscendantsMirrorTypes.stream().flatMap(i -> toExecutableElementAndDeclaredTypePair(i, i.asElement().getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.METHOD).map(m -> (ExecutableElement)m).filter(m -> {
-			Set<javax.lang.model.element.Modifier> modifiers = m.getModifiers();
-			return !modifiers.contains(javax.lang.model.element.Modifier.PRIVATE);
-		}))).collect(Collectors.toList());
+		List<ExecutableElementInfo> executableElements = superTypesWithAscendantsMirrorTypes.stream().flatMap(i -> toExecutableElementAndDeclaredTypePair(i, typeBuilder.getMethodElements(i).stream())).collect(Collectors.toList());
 
-		// Note if any methods overrides other methods
+		// Note if any methods overrides other methods (only methods with the same simple name can override each other):
+		Map<String, List<ExecutableElementInfo>> executableElementsBySimpleName = executableElements.stream().collect(Collectors.groupingBy(e -> e.executableElement.getSimpleName().toString()));
 		for (ExecutableElementInfo e : executableElements)
 		{
-			Stream<ExecutableElementInfo> implementationCandidates = executableElements.stream().filter(other -> e.executableElement.getSimpleName().equals(other.executableElement.getSimpleName()));
+			List<ExecutableElementInfo> implementationCandidates = executableElementsBySimpleName.get(e.executableElement.getSimpleName().toString());
 
-			implementationCandidates.forEach(cand -> {
-				TypeElement interfaceTypeElement = (TypeElement)e.interfaceDecl.asElement();
-				boolean overrides = elements.overrides(cand.executableElement, e.executableElement, interfaceTypeElement);
+			for (ExecutableElementInfo cand : implementationCandidates)
+			{
+				boolean overrides = typeBuilder.overrides(cand.executableElement, e.executableElement);
 				if (overrides)
 					e.optOverriddenBy=cand;
-			});
+			}
 		}
 
 		// Create all Method instances:
@@ -257,7 +295,7 @@ public final class ModelBuilder
 		Set<String> applicableTemplateImplementedMethodNames = templates.getAllTemplateMethodNames().stream().filter(n -> {
 			Predicate4<Configuration, Clazz, List<Method>, List<Member>> predicate = templateMethodConditions.get(n);
 			return predicate!=null ? predicate.test(clazz.getConfiguration(), clazz, nonPropertyMethods, members) : true;
-		}).collect(Collectors.toSet());
+		}).collect(Collectors.toCollection(LinkedHashSet::new));
 
 		claimAndVerifyMethods(nonPropertyMethods, propertyMethods, applicableTemplateImplementedMethodNames);
 
@@ -287,20 +325,16 @@ public final class ModelBuilder
 
 	private void claimAndVerifyMethods(List<Method> nonPropertyMethods, List<Property> propertyMethods, Set<String> applicableTemplateImplementedMethodNames)
 	{
-		Set<String> unusedMethodNames = new HashSet<String>(applicableTemplateImplementedMethodNames);
+		Set<String> unusedMethodNames = new LinkedHashSet<String>(applicableTemplateImplementedMethodNames);
 
 		for (Method method : nonPropertyMethods)
 		{
 			if (!method.isOverridden()) {
 				String name = method.getOverloadName();
-				for (String templateMethodName : applicableTemplateImplementedMethodNames)
-				{
-					if (name.equals(templateMethodName)) {
-						unusedMethodNames.remove(templateMethodName);
+				if (applicableTemplateImplementedMethodNames.contains(name)) {
+					unusedMethodNames.remove(name);
 
-						method.setImplementationInfo(ImplementationInfo.IMPLEMENTATION_PROVIDED_BY_THIS_OBJECT);
-						break;
-					}
+					method.setImplementationInfo(ImplementationInfo.IMPLEMENTATION_PROVIDED_BY_THIS_OBJECT);
 				}
 			}
 		}
@@ -462,7 +496,7 @@ public final class ModelBuilder
 	private List<Annotation> createConstructorAnnotations(Clazz clazz, List<Parameter> parameters, boolean primaryConstructor, boolean includeFactoryMethod)
 	{
 		String overloadName = Method.getOverloadName("", parameters);
- 	    List<Annotation> configuredConstructorAnnotations = configuration.getMethodAnnotations(m -> matchingOverloads(m, overloadName, true)).stream().map(pair -> new Annotation(clazz, pair.getValue())).collect(Collectors.toList());
+ 	    List<Annotation> configuredConstructorAnnotations = configuration.findMethodAnnotations(overloadName).stream().map(code -> new Annotation(clazz, code)).collect(Collectors.toList());
 
 		List<Annotation> result;
 		if (primaryConstructor && (configuration.getDataConversion()==DataConversion.JACKSON_DATABIND_ANNOTATIONS || configuration.getDataConversion()==DataConversion.JACKSON_DATABIND_ANNOTATIONS_WITH_JDK8_PARAMETER_NAMES) && !includeFactoryMethod)
@@ -477,7 +511,7 @@ public final class ModelBuilder
 	private List<Annotation> createFactoryMethodAnnotations(Clazz clazz, List<Parameter> parameters, boolean primaryFactoryMethod)
 	{
 		String overloadName = Method.getOverloadName(ConfigurationDefaults.factoryMethodName, parameters);
-		List<Annotation> configuredFactoryAnnotations = configuration.getMethodAnnotations(m -> matchingOverloads(m, overloadName, true)).stream().map(pair -> new Annotation(clazz, pair.getValue())).collect(Collectors.toList());
+		List<Annotation> configuredFactoryAnnotations = configuration.findMethodAnnotations(overloadName).stream().map(code -> new Annotation(clazz, code)).collect(Collectors.toList());
 
 		List<Annotation> result;
 		if (primaryFactoryMethod && (configuration.getDataConversion()==DataConversion.JACKSON_DATABIND_ANNOTATIONS || configuration.getDataConversion()==DataConversion.JACKSON_DATABIND_ANNOTATIONS_WITH_JDK8_PARAMETER_NAMES))
@@ -608,10 +642,8 @@ public final class ModelBuilder
 	{
 	    Method newMethod = null;
 
-		String javaDoc = elements.getDocComment(m);
-
-		if (javaDoc==null) // hmmm - seems to be null always (api not working?)
-			javaDoc="";
+		// Looking up javadoc searches the source of the declaring type, so it is only done if used (otherwise building is quadratic in the number of methods).
+		String javaDoc = "";
 
 		ExecutableType executableMethodMirrorType;
 
@@ -706,13 +738,21 @@ public final class ModelBuilder
 		    }
 		}
 
+		if (newMethod!=null) {
+			newMethod.initJavaDoc(() -> {
+				String docComment = elements.getDocComment(m);
+				return docComment!=null ? docComment : "";
+			});
+			unresolvedJavaDocMethods.add(newMethod);
+		}
+
 		return newMethod;
 	}
 
 	private List<Annotation> createMethodAnnotations(BasicClazz clazz, String methodName, List<Parameter> parameters, EnumSet<Modifier> modifiers)
 	{
 		String overloadName = Method.getOverloadName(methodName, parameters);
-		List<Annotation> configuredFactoryAnnotations = configuration.getMethodAnnotations(m -> matchingOverloads(m, overloadName, true)).stream().map(pair -> new Annotation(clazz, pair.getValue())).collect(Collectors.toList());
+		List<Annotation> configuredFactoryAnnotations = configuration.findMethodAnnotations(overloadName).stream().map(code -> new Annotation(clazz, code)).collect(Collectors.toList());
 
 		List<Annotation> result = new ArrayList<Annotation>(configuredFactoryAnnotations);
 
@@ -786,6 +826,7 @@ public final class ModelBuilder
 	private List<Type> filterImportTypes(BasicClazz clazz, List<Type> importTypes)
 	{
 		List<Type> result = new ArrayList<Type>();
+		Set<String> resultQualifiedNames = new HashSet<String>();
 
 		for (Type type : importTypes)
 		{
@@ -795,7 +836,7 @@ public final class ModelBuilder
 			if (type.getPackageName().equals(clazz.getPackageName()))
 			    continue;
 
-			if (result.stream().anyMatch(existingType -> existingType.getQualifiedName().equals(type.getQualifiedName())))
+			if (!resultQualifiedNames.add(type.getQualifiedName()))
 			   continue;
 
 			result.add(type);
@@ -880,7 +921,10 @@ public final class ModelBuilder
 
 	private List<Annotation> createMemberAnnotations(BasicClazz clazz, String memberName)
 	{
-		return configuration.getMemberAnnotations(m -> m.equals(memberName)).stream().map(pair -> new Annotation(clazz, pair.getValue())).collect(Collectors.toList());
+		if (memberAnnotationsByName==null)
+			memberAnnotationsByName=configuration.getMemberAnnotations().stream().collect(Collectors.groupingBy(pair -> pair.getKey(), Collectors.mapping(pair -> pair.getValue(), Collectors.toList())));
+
+		return memberAnnotationsByName.getOrDefault(memberName, Collections.emptyList()).stream().map(code -> new Annotation(clazz, code)).collect(Collectors.toList());
 	}
 
 	private String syntesisePropertyMemberName(String[] propertyPrefixes, ExecutableElement method)
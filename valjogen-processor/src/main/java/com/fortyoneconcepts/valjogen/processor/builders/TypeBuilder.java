@@ -7,14 +7,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.lang.model.element.Element;
-import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -27,13 +27,15 @@ import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
 
-import com.fortyoneconcepts.valjogen.annotations.internal.ThisReference;
 import com.fortyoneconcepts.valjogen.model.*;
+import com.fortyoneconcepts.valjogen.processor.FlightRecorderEvents;
+import com.fortyoneconcepts.valjogen.processor.FlightRecorderEvents.EventKind;
 import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
 import com.fortyoneconcepts.valjogen.processor.DiagnosticMessageConsumer;
 import com.fortyoneconcepts.valjogen.processor.ProcessorMessages;
 import com.fortyoneconcepts.valjogen.processor.TemplateKind;
 import com.fortyoneconcepts.valjogen.processor.TypePool;
+import com.fortyoneconcepts.valjogen.processor.builders.TypeSymbolTable.TypeSymbol;
 
 /**
  * This class assists the {@link ModelBuilder} with transforming qualified type names and types in the javax.lang.model.* format to our own valjogen models.
@@ -48,16 +50,18 @@ final class TypeBuilder
 	private final static Logger LOGGER = Logger.getLogger(TypeBuilder.class.getName());
 
 	private final TypePool typePool;
+	private final TypeSymbolTable symbolTable;
 	private final Types types;
 	private final Elements elements;
 	private final DiagnosticMessageConsumer errorConsumer;
 	private final TypeElement masterInterfaceElement;
 	private final Configuration configuration;
 	private final NoType noType;
+	private final List<BasicClazz> unresolvedClazzTypes;
 
 	// private int recursiveCreateTypeCount = 0;
 
-	TypeBuilder(Types types, Elements elements, DiagnosticMessageConsumer errorConsumer, TypeElement masterInterfaceElement, Configuration configuration, NoType noType)
+	TypeBuilder(Types types, Elements elements, DiagnosticMessageConsumer errorConsumer, TypeElement masterInterfaceElement, Configuration configuration, NoType noType, TypeSymbolTable symbolTable)
 	{
       this.types=types;
 	  this.elements=elements;
@@ -67,6 +71,28 @@ final class TypeBuilder
 
 	  this.typePool = new TypePool();
 	  this.noType = noType;
+	  this.symbolTable = symbolTable;
+	  this.unresolvedClazzTypes = new ArrayList<BasicClazz>();
+	}
+
+	/**
+	 * Resolve the members and methods of all detailed types created so far that have not been accessed yet. Must be called before the model
+	 * is used by other threads as the javax.lang.model.* instances used for resolving are not multi-thread safe.
+	 */
+	void resolveContent()
+	{
+		// Resolving only creates types with low detail, but use an index in case this changes.
+		for (int i=0; i<unresolvedClazzTypes.size(); ++i)
+			unresolvedClazzTypes.get(i).resolveContent();
+		unresolvedClazzTypes.clear();
+	}
+
+	/**
+	 * @return Number of types created so far.
+	 */
+	int getTypeCount()
+	{
+		return typePool.size();
 	}
 
 	/**
@@ -83,10 +109,10 @@ final class TypeBuilder
 		Type existingType = null;
 		Type newType=null;
 
-		String typeName = mirrorType.toString();
+		TypeSymbol symbol = symbolTable.get(mirrorType);
 
 		// If using self-stand-in, replace with name of generated class and if identical with generate class return clazz itself as type
-		typeName=typeName.replace(ThisReference.class.getName(), clazz.getGeneratedClazz().getPrototypicalQualifiedName());
+		String typeName = symbol.getName(clazz.getGeneratedClazz().getPrototypicalQualifiedName());
 		if (typeName.equals(clazz.getPrototypicalQualifiedName()))
 			return clazz;
 
@@ -97,6 +123,8 @@ final class TypeBuilder
 			return existingType;
 		}
 
+		FlightRecorderEvents.Event poolMissEvent = FlightRecorderEvents.begin(EventKind.TYPE_POOL_MISS);
+
 		if (mirrorType instanceof javax.lang.model.type.PrimitiveType) {
 			newType=new com.fortyoneconcepts.valjogen.model.PrimitiveType(clazz, typeName);
 			existingType=typePool.put(typeName, newType);
@@ -115,19 +143,20 @@ final class TypeBuilder
 			}
 
 		    existingType=typePool.put(typeName, newType);
-		    doInitObjectType(clazz, mirrorType, detailLevel, newObjectType);
+		    doInitObjectType(clazz, symbol, detailLevel, newObjectType);
 		}
 
 		assert upgrade || existingType==null : "Should not overwrite existing type in pool for type "+existingType.getQualifiedName()+" (unless in case of detail upgrade)";
 
+		if (poolMissEvent.isEnabled())
+			poolMissEvent.commit(masterInterfaceElement.getQualifiedName().toString(), typeName, detailLevel.name());
+
 		return newType;
 	}
 
-	private void doInitObjectType(BasicClazz clazz, TypeMirror mirrorType, DetailLevel detailLevel, ObjectType newObjectType)
+	private void doInitObjectType(BasicClazz clazz, TypeSymbol symbol, DetailLevel detailLevel, ObjectType newObjectType)
 	{
-	   List<DeclaredType> directSuperTypeMirrors = (mirrorType.getKind()==TypeKind.DECLARED)
-			                                       ? types.directSupertypes(mirrorType).stream().map(t -> (DeclaredType)t).collect(Collectors.toList())
-			                                       : Collections.emptyList() ;
+	   List<DeclaredType> directSuperTypeMirrors = symbol.getDirectSuperTypes();
 
 	   // List<? extends AnnotationMirror> mirrorAnnotations = mirrorType.getAnnotationMirrors();
        List<Annotation> annotations =  Collections.emptyList(); // Not supported yet.
@@ -140,57 +169,39 @@ final class TypeBuilder
 	   if (directSuperTypeMirrors.size()>0) {
 		   baseClazzTypeMirror = directSuperTypeMirrors.get(0);
 		   interfaceSuperTypeMirrors = directSuperTypeMirrors.size()>1 ? directSuperTypeMirrors.subList(1, directSuperTypeMirrors.size()-1) : Collections.emptyList();
-		   allSuperTypesWithAscendantsTypeMirrors = getSuperTypesWithAncestors(directSuperTypeMirrors).collect(Collectors.toList());
+		   allSuperTypesWithAscendantsTypeMirrors = symbol.getSuperTypesWithAncestors();
 	   } else {
 		   baseClazzTypeMirror=null;
 		   interfaceSuperTypeMirrors=Collections.emptyList();
 		   allSuperTypesWithAscendantsTypeMirrors=Collections.emptyList();
 	   }
 
-	   DeclaredType declaredType;
-	   if (mirrorType instanceof DeclaredType) {
-		   declaredType = (DeclaredType)mirrorType;
-		   genericTypeMirrorArguments = declaredType.getTypeArguments();
-	   } else {
-		   declaredType=null;
-		   genericTypeMirrorArguments=Collections.emptyList();
-	   }
+	   genericTypeMirrorArguments = symbol.getTypeArguments();
 
 	   ObjectType baseClazzType = baseClazzTypeMirror!=null ? (ObjectType)createType(clazz, baseClazzTypeMirror, detailLevel) : noType;
 	   List<Type> interfaceTypes = interfaceSuperTypeMirrors.stream().map(t -> createType(clazz, t, detailLevel)).collect(Collectors.toList());
-	   Set<Type> interfaceTypesWithAscendants = allSuperTypesWithAscendantsTypeMirrors.stream().map(t -> createType(clazz, t, detailLevel)).collect(Collectors.toSet());
+	   Set<Type> interfaceTypesWithAscendants = allSuperTypesWithAscendantsTypeMirrors.stream().map(t -> createType(clazz, t, detailLevel)).collect(Collectors.toCollection(LinkedHashSet::new));
 	   List<Type> genericTypeArguments = genericTypeMirrorArguments.stream().map(t -> createType(clazz, t, detailLevel)).collect(Collectors.toList());
 
 	   newObjectType.initType(baseClazzType, interfaceTypes, interfaceTypesWithAscendants, genericTypeArguments);
 
 	   if (newObjectType instanceof BasicClazz)
 	   {
-		  assert (declaredType!=null);
 		  BasicClazz newClazzType = (BasicClazz)newObjectType;
 
-		  Element newClazzElement=declaredType.asElement();
-
-		  Stream<ExecutableElement> executableElements = newClazzElement.getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.METHOD || m.getKind()==ElementKind.CONSTRUCTOR).map(m -> (ExecutableElement)m).filter(m -> {
-			Set<javax.lang.model.element.Modifier> modifiers = m.getModifiers();
-			return !modifiers.contains(javax.lang.model.element.Modifier.PRIVATE);
-		  });
-
-		  List<Method> methods = executableElements.map(e -> createMethod(newClazzType, newClazzType, declaredType, e)).collect(Collectors.toList());
-
-		  Stream<VariableElement> fieldElements = newClazzElement.getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.FIELD).map(m -> (VariableElement)m).filter(m -> {
-			Set<javax.lang.model.element.Modifier> modifiers = m.getModifiers();
-			return !modifiers.contains(javax.lang.model.element.Modifier.PRIVATE);
-		  });
+		  // Most members and methods of detailed types (like base classes) are never used, so they are only created when first accessed.
+		  Supplier<List<Method>> methods = () -> symbol.getExecutableElements().stream().map(e -> createMethod(newClazzType, newClazzType, e)).collect(Collectors.toList());
 
-		  List<Member> members = fieldElements.map(e -> createMember(newClazzType, newClazzType, declaredType, e)).collect(Collectors.toList());
+		  Supplier<List<Member>> members = () -> symbol.getFieldElements().stream().map(e -> createMember(newClazzType, newClazzType, e)).collect(Collectors.toList());
 
-   	      EnumSet<Modifier> modifiers = createModifierSet(newClazzElement.getModifiers());
+   	      EnumSet<Modifier> modifiers = createModifierSet(symbol.getElement().getModifiers());
 
 		  newClazzType.initContent(members,  methods, modifiers, annotations);
+		  unresolvedClazzTypes.add(newClazzType);
 	   }
 	}
 
-	private Member createMember(BasicClazz clazz, Type declaringType, DeclaredType clazzDeclaredType, VariableElement fieldMirrorElement)
+	private Member createMember(BasicClazz clazz, Type declaringType, VariableElement fieldMirrorElement)
 	{
 		TypeMirror fieldMirrorType = fieldMirrorElement.asType();
 
@@ -203,7 +214,7 @@ final class TypeBuilder
 		return new Member(clazz, fieldType, fieldName, modifiers, annotations);
 	}
 
-	private Method createMethod(BasicClazz clazz, Type declaringType, DeclaredType clazzDeclaredType, ExecutableElement methodMirrorElement)
+	private Method createMethod(BasicClazz clazz, Type declaringType, ExecutableElement methodMirrorElement)
 	{
 		ExecutableType methodMirrorType = (ExecutableType)methodMirrorElement.asType();
 
@@ -277,11 +288,6 @@ final class TypeBuilder
 		return new Parameter(clazz, createType(clazz, paramType, DetailLevel.Low), createType(clazz, param.asType(), detailLevel), name, modifiers, annotations);
 	}
 
-	private Stream<DeclaredType> getSuperTypesWithAncestors(List<DeclaredType> superTypes)
-	{
-		return Stream.concat(superTypes.stream(), superTypes.stream().flatMap(type -> getSuperTypesWithAncestors(types.directSupertypes(type).stream().map(t -> (DeclaredType)t).collect(Collectors.toList()))));
-	}
-
 	HelperTypes createHelperTypes(BasicClazz clazz)
 	{
 		Type voidType = new com.fortyoneconcepts.valjogen.model.PrimitiveType(clazz, "void");
@@ -406,19 +412,55 @@ final class TypeBuilder
 		return interfaceElements;
 	}
 
+	/**
+	 * @param classOrInterfaceType A class or interface type.
+	 *
+	 * @return The interfaces inherited by the type, directly or indirectly, followed by the type itself. The analysis of the declarations is shared by all builders in the round.
+	 */
 	Stream<DeclaredType> getDeclaredInterfacesWithAscendents(DeclaredType classOrInterfaceType)
 	{
 		TypeElement classOrInterfaceElement = (TypeElement)classOrInterfaceType.asElement();
-		return Stream.concat(classOrInterfaceElement.getInterfaces().stream()
-				             .map(t -> (DeclaredType)t)
-				             .flatMap(z -> getDeclaredInterfacesWithAscendents(z)), Stream.of(classOrInterfaceType));
+		return Stream.concat(symbolTable.getAncestorInterfaces(classOrInterfaceElement).stream(), Stream.of(classOrInterfaceType));
 	}
 
+	/**
+	 * @param classOrInterfaceType A class or interface type.
+	 *
+	 * @return The direct supertypes of the type followed by the type itself.
+	 */
 	Stream<DeclaredType> getSuperTypesWithAscendents(DeclaredType classOrInterfaceType)
 	{
-		List<? extends TypeMirror> superTypes = types.directSupertypes(classOrInterfaceType);
-		Stream<DeclaredType> superTypesAsDeclaredTypes = superTypes.stream().map(t -> (DeclaredType)t);
-		return Stream.concat(superTypesAsDeclaredTypes, Stream.of(classOrInterfaceType));
+		return Stream.concat(symbolTable.get(classOrInterfaceType).getDirectSuperTypes().stream(), Stream.of(classOrInterfaceType));
+	}
+
+	/**
+	 * @param classOrInterfaceType A class or interface type.
+	 *
+	 * @return Non-private methods declared by the type.
+	 */
+	List<ExecutableElement> getMethodElements(DeclaredType classOrInterfaceType)
+	{
+		return symbolTable.getMethodElements((TypeElement)classOrInterfaceType.asElement());
+	}
 
+	/**
+	 * @param overrider The method that may override.
+	 * @param overridden The method that may be overridden.
+	 *
+	 * @return True if overrider overrides overridden as a member of the type that declares overridden.
+	 */
+	boolean overrides(ExecutableElement overrider, ExecutableElement overridden)
+	{
+		return symbolTable.overrides(elements, overrider, overridden);
+	}
+
+	/**
+	 * @param classOrInterfaceType A class or interface type.
+	 *
+	 * @return Canonical name of the type.
+	 */
+	String getTypeName(DeclaredType classOrInterfaceType)
+	{
+		return symbolTable.get(classOrInterfaceType).name;
 	}
 }
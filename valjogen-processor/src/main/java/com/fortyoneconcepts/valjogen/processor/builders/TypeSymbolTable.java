@@ -0,0 +1,259 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor.builders;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.fortyoneconcepts.valjogen.annotations.internal.ThisReference;
+
+/**
+ * Symbol table with the structural information about types that the {@link TypeBuilder} extracts from javax.lang.model.* (names, supertypes,
+ * type arguments and non-private members). The information does not depend on the generated class using the type, so the same table can be shared by all
+ * {@link ModelBuilder} instances in a processing round. Only the light-weight per-class Type models then need to be created for each generated class.
+ *
+ * Symbols are found by TypeMirror identity first and by the canonical type name second (same key as used for types in the model).
+ *
+ * The table also holds the analysis of type elements that every {@link ModelBuilder} needs for the supertypes of its interface (inherited interfaces,
+ * declared methods and which methods override each other). It is keyed by TypeElement so interfaces that share supertypes only analyse them once per round.
+ *
+ * Nb: Instances of this class is not multi-thread safe and must only be used in a single processing round as javax.lang.model.* instances may
+ * not be valid in later rounds.
+ *
+ * @author mmc
+ */
+public final class TypeSymbolTable
+{
+	private static final String thisReferenceName = ThisReference.class.getName();
+
+	private final Types types;
+	private final Map<TypeMirror, TypeSymbol> symbolsByMirror;
+	private final Map<String, TypeSymbol> symbolsByName;
+	private final Map<TypeElement, List<DeclaredType>> ancestorInterfacesByElement;
+	private final Map<TypeElement, List<ExecutableElement>> methodElementsByElement;
+	private final Map<ExecutableElement, Map<ExecutableElement, Boolean>> overridesByMethod;
+
+	/**
+	 * Structural information about a type. Parts that are only needed for detailed types are computed lazily.
+	 *
+	 * @author mmc
+	 */
+	final class TypeSymbol
+	{
+		final String name;
+		final boolean hasThisReference;
+
+		private final TypeMirror mirrorType;
+		private List<DeclaredType> directSuperTypes;
+		private List<DeclaredType> superTypesWithAncestors;
+		private List<ExecutableElement> executableElements;
+		private List<VariableElement> fieldElements;
+
+		private TypeSymbol(TypeMirror mirrorType, String name)
+		{
+			this.mirrorType=mirrorType;
+			this.name=name;
+			this.hasThisReference=name.contains(thisReferenceName);
+		}
+
+		/**
+		 * @param clazzPrototypicalQualifiedName Prototypical qualified name of the generated class using the type.
+		 *
+		 * @return Name of the type as used by the specified class.
+		 */
+		String getName(String clazzPrototypicalQualifiedName)
+		{
+			return hasThisReference ? name.replace(thisReferenceName, clazzPrototypicalQualifiedName) : name;
+		}
+
+		List<DeclaredType> getDirectSuperTypes()
+		{
+			if (directSuperTypes==null)
+			{
+				directSuperTypes = (mirrorType.getKind()==TypeKind.DECLARED)
+		                           ? types.directSupertypes(mirrorType).stream().map(t -> (DeclaredType)t).collect(Collectors.toList())
+		                           : Collections.emptyList();
+			}
+			return directSuperTypes;
+		}
+
+		List<DeclaredType> getSuperTypesWithAncestors()
+		{
+			if (superTypesWithAncestors==null)
+			{
+				List<DeclaredType> superTypes = getDirectSuperTypes();
+				superTypesWithAncestors=Stream.concat(superTypes.stream(), superTypes.stream().flatMap(type -> get(type).getSuperTypesWithAncestors().stream())).collect(Collectors.toList());
+			}
+			return superTypesWithAncestors;
+		}
+
+		List<? extends TypeMirror> getTypeArguments()
+		{
+			return (mirrorType instanceof DeclaredType) ? ((DeclaredType)mirrorType).getTypeArguments() : Collections.emptyList();
+		}
+
+		/**
+		 * @return Non-private methods and constructors of a declared type.
+		 */
+		List<ExecutableElement> getExecutableElements()
+		{
+			if (executableElements==null)
+			{
+				executableElements=getElement().getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.METHOD || m.getKind()==ElementKind.CONSTRUCTOR)
+						                                                      .map(m -> (ExecutableElement)m)
+						                                                      .filter(m -> !m.getModifiers().contains(javax.lang.model.element.Modifier.PRIVATE))
+						                                                      .collect(Collectors.toList());
+			}
+			return executableElements;
+		}
+
+		/**
+		 * @return Non-private fields of a declared type.
+		 */
+		List<VariableElement> getFieldElements()
+		{
+			if (fieldElements==null)
+			{
+				fieldElements=getElement().getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.FIELD)
+						                                                 .map(m -> (VariableElement)m)
+						                                                 .filter(m -> !m.getModifiers().contains(javax.lang.model.element.Modifier.PRIVATE))
+						                                                 .collect(Collectors.toList());
+			}
+			return fieldElements;
+		}
+
+		Element getElement()
+		{
+			return ((DeclaredType)mirrorType).asElement();
+		}
+	}
+
+	/**
+	 * Create an empty symbol table.
+	 *
+	 * @param types Types helper from javax.lang.model of the current processing round.
+	 */
+	public TypeSymbolTable(Types types)
+	{
+		this.types=types;
+		this.symbolsByMirror=new IdentityHashMap<TypeMirror, TypeSymbol>();
+		this.symbolsByName=new HashMap<String, TypeSymbol>();
+		this.ancestorInterfacesByElement=new IdentityHashMap<TypeElement, List<DeclaredType>>();
+		this.methodElementsByElement=new IdentityHashMap<TypeElement, List<ExecutableElement>>();
+		this.overridesByMethod=new IdentityHashMap<ExecutableElement, Map<ExecutableElement, Boolean>>();
+	}
+
+	/**
+	 * Get the symbol for a type, creating it if it does not exist.
+	 *
+	 * @param mirrorType The javax.lang.model type.
+	 *
+	 * @return The shared symbol.
+	 */
+	TypeSymbol get(TypeMirror mirrorType)
+	{
+		TypeSymbol symbol = symbolsByMirror.get(mirrorType);
+		if (symbol==null)
+		{
+			String name = mirrorType.toString();
+			symbol = symbolsByName.computeIfAbsent(name, n -> new TypeSymbol(mirrorType, n));
+			symbolsByMirror.put(mirrorType, symbol);
+		}
+		return symbol;
+	}
+
+	/**
+	 * Get the interfaces inherited by a class or interface declaration, directly or indirectly. Each interface is followed by its own ancestors
+	 * in declaration order (depth-first) and an interface inherited through more than one path is included once for each path.
+	 *
+	 * @param element The class or interface declaration.
+	 *
+	 * @return The inherited interfaces as declared by the supertypes (i.e. in terms of their type variables).
+	 */
+	List<DeclaredType> getAncestorInterfaces(TypeElement element)
+	{
+		List<DeclaredType> ancestors = ancestorInterfacesByElement.get(element);
+		if (ancestors==null)
+		{
+			ancestors=element.getInterfaces().stream().map(t -> (DeclaredType)t)
+					                                  .flatMap(t -> Stream.concat(getAncestorInterfaces((TypeElement)t.asElement()).stream(), Stream.of(t)))
+					                                  .collect(Collectors.toList());
+			ancestorInterfacesByElement.put(element, ancestors);
+		}
+		return ancestors;
+	}
+
+	/**
+	 * @param element The class or interface declaration.
+	 *
+	 * @return Non-private methods declared by the type (not including constructors).
+	 */
+	List<ExecutableElement> getMethodElements(TypeElement element)
+	{
+		List<ExecutableElement> methods = methodElementsByElement.get(element);
+		if (methods==null)
+		{
+			methods=element.getEnclosedElements().stream().filter(m -> m.getKind()==ElementKind.METHOD)
+					                                      .map(m -> (ExecutableElement)m)
+					                                      .filter(m -> !m.getModifiers().contains(javax.lang.model.element.Modifier.PRIVATE))
+					                                      .collect(Collectors.toList());
+			methodElementsByElement.put(element, methods);
+		}
+		return methods;
+	}
+
+	/**
+	 * Check if a method overrides another method as a member of the type that declares the overridden method. The answer is remembered
+	 * for the rest of the round.
+	 *
+	 * @param elements Elements helper from javax.lang.model of the current processing round.
+	 * @param overrider The method that may override.
+	 * @param overridden The method that may be overridden.
+	 *
+	 * @return True if overrider overrides overridden.
+	 */
+	boolean overrides(Elements elements, ExecutableElement overrider, ExecutableElement overridden)
+	{
+		Map<ExecutableElement, Boolean> overriders = overridesByMethod.computeIfAbsent(overridden, m -> new IdentityHashMap<ExecutableElement, Boolean>());
+		Boolean overrides = overriders.get(overrider);
+		if (overrides==null)
+		{
+			overrides=elements.overrides(overrider, overridden, (TypeElement)overridden.getEnclosingElement());
+			overriders.put(overrider, overrides);
+		}
+		return overrides;
+	}
+
+	/**
+	 * @return Number of type elements whose methods has been analysed.
+	 */
+	int analysedElementCount()
+	{
+		return methodElementsByElement.size();
+	}
+
+	/**
+	 * @return Number of distinct types in the table.
+	 */
+	public int size()
+	{
+		return symbolsByName.size();
+	}
+}
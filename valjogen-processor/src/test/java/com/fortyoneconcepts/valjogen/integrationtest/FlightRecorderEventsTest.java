@@ -0,0 +1,116 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.processor.FlightRecorderEvents;
+import com.fortyoneconcepts.valjogen.processor.FlightRecorderEvents.EventKind;
+import com.fortyoneconcepts.valjogen.test.input.MutableInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that processing emits flight recorder events when recorded. The jdk.jfr API is used by reflection like the processor does, so the test
+ * is skipped on JVMs without it.
+ *
+ * @author mmc
+ */
+public class FlightRecorderEventsTest extends CompilationTestBase
+{
+	@Test
+	public void testNoEventWhenNotRecorded()
+	{
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(EventKind.RENDER);
+		Assert.assertFalse(event.isEnabled());
+		Assert.assertSame(event, FlightRecorderEvents.begin(EventKind.MODEL_BUILD));
+	}
+
+	@Test
+	public void testEventEnabledOnlyWhileRecorded() throws Throwable
+	{
+		Assume.assumeTrue("Flight recorder not available", FlightRecorderEvents.isAvailable());
+
+		Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		Object recording = recordingClass.newInstance();
+		recordingClass.getMethod("enable", String.class).invoke(recording, EventKind.RENDER.getEventName());
+		try {
+			recordingClass.getMethod("start").invoke(recording);
+			Assert.assertTrue(FlightRecorderEvents.begin(EventKind.RENDER).isEnabled());
+
+			recordingClass.getMethod("stop").invoke(recording);
+			Assert.assertFalse(FlightRecorderEvents.begin(EventKind.RENDER).isEnabled());
+		} finally {
+			recordingClass.getMethod("close").invoke(recording);
+		}
+	}
+
+	@Test
+	public void testEventsOfProcessing() throws Throwable
+	{
+		Assume.assumeTrue("Flight recorder not available", FlightRecorderEvents.isAvailable());
+
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("flightrecordertest")), nameRule.getMethodName());
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+		Map<String,String> options = getOptions(MutableInterface.class.getName());
+
+		Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		Object recording = recordingClass.newInstance();
+		for (EventKind kind : EventKind.values())
+			recordingClass.getMethod("enable", String.class).invoke(recording, kind.getEventName());
+
+		Path recordingPath = workPath.resolve("valjogen.jfr");
+		try {
+			recordingClass.getMethod("start").invoke(recording);
+
+			ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, options);
+			Assert.assertTrue(result.diagnostics.toString(), result.success);
+
+			recordingClass.getMethod("stop").invoke(recording);
+			recordingClass.getMethod("dump", Path.class).invoke(recording, recordingPath);
+		} finally {
+			recordingClass.getMethod("close").invoke(recording);
+		}
+
+		List<Object> events = readEvents(recordingPath);
+		for (EventKind kind : EventKind.values())
+			Assert.assertTrue("No "+kind.getEventName()+" event", events.stream().anyMatch(e -> getEventName(e).equals(kind.getEventName())));
+
+		Object modelEvent = events.stream().filter(e -> getEventName(e).equals(EventKind.MODEL_BUILD.getEventName())).findFirst().get();
+		Assert.assertEquals(MutableInterface.class.getName(), getValue(modelEvent, "interfaceName"));
+		Assert.assertTrue(((Number)getValue(modelEvent, "memberCount")).intValue()>0);
+	}
+
+	private static List<Object> readEvents(Path recordingPath) throws Exception
+	{
+		Class<?> recordingFileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+		return new ArrayList<Object>((List<?>)recordingFileClass.getMethod("readAllEvents", Path.class).invoke(null, recordingPath));
+	}
+
+	private static String getEventName(Object recordedEvent)
+	{
+		try {
+			Object eventType = recordedEvent.getClass().getMethod("getEventType").invoke(recordedEvent);
+			return (String)eventType.getClass().getMethod("getName").invoke(eventType);
+		} catch (ReflectiveOperationException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static Object getValue(Object recordedEvent, String fieldName) throws Exception
+	{
+		return recordedEvent.getClass().getMethod("getValue", String.class).invoke(recordedEvent, fieldName);
+	}
+}
@@ -0,0 +1,177 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic.Kind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.test.input.MutableInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that generated source is reused from the generation cache across compilations when nothing has changed.
+ *
+ * @author mmc
+ */
+public class GenerationCacheTest extends CompilationTestBase
+{
+	private static final String generatedClassName = MutableInterface.class.getPackage().getName()+".MutableImpl";
+
+	@Test
+	public void testCacheHitOnUnchangedInput() throws Exception
+	{
+		Path workPath = createWorkPath();
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+		Map<String,String> options = getCacheOptions(workPath);
+
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+		TestSupport.assertContains("0 hit(s), 1 miss(es)", first.getMessages(Kind.NOTE).toString());
+
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+		TestSupport.assertContains("1 hit(s), 0 miss(es)", second.getMessages(Kind.NOTE).toString());
+
+		Assert.assertEquals(first.getGeneratedSource(generatedClassName), second.getGeneratedSource(generatedClassName));
+	}
+
+	@Test
+	public void testCacheMissOnChangedConfiguration() throws Exception
+	{
+		Path workPath = createWorkPath();
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+		Map<String,String> options = getCacheOptions(workPath);
+
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.toStringEnabled, "false");
+
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+		TestSupport.assertContains("0 hit(s), 1 miss(es)", second.getMessages(Kind.NOTE).toString());
+		TestSupport.assertNotContains("toString()", second.getGeneratedSource(generatedClassName));
+	}
+
+	@Test
+	public void testCacheMissOnChangedOutputEpoch() throws Exception
+	{
+		Path workPath = createWorkPath();
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+		Map<String,String> options = getCacheOptions(workPath);
+
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.OUTPUTEPOCH, "0");
+
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+		TestSupport.assertContains("0 hit(s), 1 miss(es)", second.getMessages(Kind.NOTE).toString());
+		TestSupport.assertContains("1970-01-01T00:00Z", second.getGeneratedSource(generatedClassName));
+
+		ProcessorRunner.Result third = ProcessorRunner.run(workPath.resolve("third"), sources, options);
+		Assert.assertTrue(third.diagnostics.toString(), third.success);
+		TestSupport.assertContains("1 hit(s), 0 miss(es)", third.getMessages(Kind.NOTE).toString());
+		Assert.assertEquals(second.getGeneratedSource(generatedClassName), third.getGeneratedSource(generatedClassName));
+	}
+
+	@Test
+	public void testCacheMissOnChangedJavaDoc() throws Exception
+	{
+		Path workPath = createWorkPath();
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve("com").resolve("fortyoneconcepts").resolve("valjogen").resolve("test").resolve("cachedoc"));
+		Path source = packagePath.resolve("Documented.java");
+		List<Path> sources = Collections.singletonList(source);
+		Map<String,String> options = getCacheOptions(workPath);
+
+		Files.write(source, getDocumentedSource("First description").getBytes(StandardCharsets.UTF_8));
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		Files.write(source, getDocumentedSource("Second description").getBytes(StandardCharsets.UTF_8));
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+		// Javadoc is available to custom templates so a change must not reuse the cached source.
+		TestSupport.assertContains("0 hit(s), 1 miss(es)", second.getMessages(Kind.NOTE).toString());
+
+		ProcessorRunner.Result third = ProcessorRunner.run(workPath.resolve("third"), sources, options);
+		Assert.assertTrue(third.diagnostics.toString(), third.success);
+		TestSupport.assertContains("1 hit(s), 0 miss(es)", third.getMessages(Kind.NOTE).toString());
+	}
+
+	@Test
+	public void testCacheMissOnChangedMemberOfPropertyType() throws Exception
+	{
+		Path workPath = createWorkPath();
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve("com").resolve("fortyoneconcepts").resolve("valjogen").resolve("test").resolve("cachepart"));
+		Path partSource = packagePath.resolve("Part.java");
+		Path holderSource = Files.write(packagePath.resolve("PartHolder.java"), ("package com.fortyoneconcepts.valjogen.test.cachepart;\n\n"
+		                                                                         +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+		                                                                         +"public interface PartHolder\n{\n"
+		                                                                         +"  Part getPart();\n"
+		                                                                         +"}\n").getBytes(StandardCharsets.UTF_8));
+		List<Path> sources = Arrays.asList(holderSource, partSource);
+		Map<String,String> options = getCacheOptions(workPath);
+
+		Files.write(partSource, getPartSource("int getSize();").getBytes(StandardCharsets.UTF_8));
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		// Members of property types are part of the model available to templates so a change must not reuse the cached source.
+		Files.write(partSource, getPartSource("int getSize();\n  String getLabel();").getBytes(StandardCharsets.UTF_8));
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+		TestSupport.assertContains("0 hit(s), 1 miss(es)", second.getMessages(Kind.NOTE).toString());
+
+		ProcessorRunner.Result third = ProcessorRunner.run(workPath.resolve("third"), sources, options);
+		Assert.assertTrue(third.diagnostics.toString(), third.success);
+		TestSupport.assertContains("1 hit(s), 0 miss(es)", third.getMessages(Kind.NOTE).toString());
+	}
+
+	private static String getPartSource(String members)
+	{
+		return "package com.fortyoneconcepts.valjogen.test.cachepart;\n\n"
+		       +"public interface Part\n{\n"
+		       +"  "+members+"\n"
+		       +"}\n";
+	}
+
+	private static String getDocumentedSource(String description)
+	{
+		return "package com.fortyoneconcepts.valjogen.test.cachedoc;\n\n"
+		       +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+			   +"public interface Documented\n{\n"
+		       +"  /**\n   * "+description+"\n   */\n"
+			   +"  int getValue();\n"
+		       +"}\n";
+	}
+
+	private Path createWorkPath() throws Exception
+	{
+		return Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("cachetest")), nameRule.getMethodName());
+	}
+
+	private Map<String,String> getCacheOptions(Path workPath) throws Exception
+	{
+		Map<String,String> options = getOptions(MutableInterface.class.getName());
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.CACHEDIR, workPath.resolve("cache").toString());
+		return options;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+import com.fortyoneconcepts.valjogen.test.input.AnnotatedInterfaceWithHeader;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test support for incremental builds by build tools like gradle.
+ *
+ * @author mmc
+ */
+public class IncrementalProcessingTest extends CompilationTestBase
+{
+	/**
+	 * Processor that records the originating elements given to the filer for each generated source file.
+	 */
+	private static final class OriginatingElementsRecorder extends AnnotationProcessor
+	{
+		private final Map<String, List<String>> originatingElements = new HashMap<String, List<String>>();
+
+		OriginatingElementsRecorder(Map<String,String> options)
+		{
+			super(options);
+		}
+
+		@Override
+		public synchronized void init(ProcessingEnvironment pe)
+		{
+			Filer filer = pe.getFiler();
+			Filer recordingFiler = (Filer)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Filer.class }, (proxy, method, args) -> {
+				if (method.getName().equals("createSourceFile"))
+					originatingElements.put(args[0].toString(), Arrays.stream((Element[])args[1]).map(Element::toString).collect(Collectors.toList()));
+				return invoke(method, filer, args);
+			});
+
+			super.init((ProcessingEnvironment)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ProcessingEnvironment.class },
+					(proxy, method, args) -> method.getName().equals("getFiler") ? recordingFiler : invoke(method, pe, args)));
+		}
+
+		private static Object invoke(Method method, Object target, Object[] args) throws Throwable
+		{
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	@Test
+	public void testProcessorRegisteredAsIsolating() throws Exception
+	{
+		try (InputStream in = AnnotationProcessor.class.getClassLoader().getResourceAsStream("META-INF/gradle/incremental.annotation.processors");
+			 Scanner scanner = new Scanner(in, "UTF-8"))
+		{
+			Assert.assertEquals(AnnotationProcessor.class.getName()+",isolating", scanner.nextLine().trim());
+		}
+	}
+
+	@Test
+	public void testPackageConfigurationIsOriginatingElement() throws Exception
+	{
+		String packageName = "com.fortyoneconcepts.valjogen.test.configuredpackage";
+
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("incrementaltest")), nameRule.getMethodName());
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve(packageName.replace(".", File.separator)));
+
+		List<Path> sources = new ArrayList<Path>();
+		sources.add(Files.write(packagePath.resolve("package-info.java"), ("@com.fortyoneconcepts.valjogen.annotations.VALJOConfigure(comment=\"package\")\n"
+		                                                                   +"package "+packageName+";\n").getBytes(StandardCharsets.UTF_8)));
+		sources.add(Files.write(packagePath.resolve("PackageConfigured.java"), ("package "+packageName+";\n\n"
+		                                                                        +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+		                                                                        +"public interface PackageConfigured\n{\n"
+		                                                                        +"  int getValue();\n"
+		                                                                        +"}\n").getBytes(StandardCharsets.UTF_8)));
+		sources.add(Files.write(packagePath.resolve("SelfConfigured.java"), ("package "+packageName+";\n\n"
+		                                                                     +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+		                                                                     +"@com.fortyoneconcepts.valjogen.annotations.VALJOConfigure(comment=\"self\")\n"
+		                                                                     +"public interface SelfConfigured\n{\n"
+		                                                                     +"  int getValue();\n"
+		                                                                     +"}\n").getBytes(StandardCharsets.UTF_8)));
+
+		OriginatingElementsRecorder processor = new OriginatingElementsRecorder(new HashMap<String,String>());
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, processor);
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+
+		Assert.assertEquals(Arrays.asList(packageName+".PackageConfigured", packageName), processor.originatingElements.get(packageName+".PackageConfiguredImpl"));
+		Assert.assertEquals(Arrays.asList(packageName+".SelfConfigured"), processor.originatingElements.get(packageName+".SelfConfiguredImpl"));
+	}
+
+	@Test
+	public void testDependencyFileListsSideFiles() throws Exception
+	{
+		String interfaceName = AnnotatedInterfaceWithHeader.class.getName();
+
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("incrementaltest")), nameRule.getMethodName());
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(interfaceName).toURI()));
+
+		Map<String,String> options = getOptions(interfaceName);
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.DEPENDENCYFILES, "true");
+
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, options);
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+
+		Path dependencyFile = result.classOutputPath.resolve("META-INF/valjogen/"+interfaceName+".dependencies");
+		List<String> dependencies = Files.readAllLines(dependencyFile, StandardCharsets.UTF_8);
+
+		Assert.assertEquals(1, dependencies.size());
+		Assert.assertTrue(dependencies.get(0), dependencies.get(0).endsWith("Header.txt"));
+		Assert.assertTrue(dependencies.get(0), Files.isRegularFile(Paths.get(dependencies.get(0))));
+	}
+}
@@ -0,0 +1,51 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaFileObject;
+
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+import com.fortyoneconcepts.valjogen.test.input.SimpleAnnotatedInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.google.testing.compile.JavaFileObjects;
+import com.google.testing.compile.JavaSourcesSubjectFactory;
+
+import static com.fortyoneconcepts.valjogen.test.util.TestSupport.*;
+
+/**
+ * Check that all test input classes compiled together can be generated when rendering is done by worker threads.
+ *
+ * Unfortunately, we are currenly forced to use a google's Truth framework below
+ * instead of a JUnit assert like all the other tests:
+ *
+ * @author mmc
+ */
+public class ParallelRenderingTest extends CompilationTestBase
+{
+	private static final String packageNameForTests = SimpleAnnotatedInterface.class.getPackage().getName();
+
+	@Test
+	public void testAllInterfacesRenderedInParallel() throws Throwable
+	{
+		List<JavaFileObject> sources = new ArrayList<JavaFileObject>();
+		for (String className : (Iterable<String>)getClassNames(ParallelRenderingTest.class.getClassLoader(), packageNameForTests)::iterator)
+			sources.add(JavaFileObjects.forResource(getSourceUrl(className)));
+
+		Map<String,String> options = getOptions(SimpleAnnotatedInterface.class.getName());
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.RENDERTHREADS, "4");
+
+		org.truth0.Truth.ASSERT.about(JavaSourcesSubjectFactory.javaSources())
+		 .that(sources)
+		 .processedWith(new AnnotationProcessor(options))
+		 .compilesWithoutError();
+	}
+}
@@ -0,0 +1,148 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+import com.fortyoneconcepts.valjogen.test.input.SimpleAnnotatedInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+import static com.fortyoneconcepts.valjogen.test.util.TestSupport.*;
+
+/**
+ * Test that all test input classes generate byte-identical sources when the output epoch is set, both for two compilations in this JVM and for
+ * a compilation in another JVM with a different time zone and locale.
+ *
+ * @author mmc
+ */
+public class ReproducibleOutputTest extends CompilationTestBase
+{
+	private static final String packageNameForTests = SimpleAnnotatedInterface.class.getPackage().getName();
+	private static final String outputEpoch = "1400000000";
+
+	@Test
+	public void testSameOutputInSameJVM() throws Throwable
+	{
+		Path workPath = createWorkPath();
+		List<Path> sources = getSources();
+		Map<String,String> options = getReproducibleOptions();
+
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		ProcessorRunner.Result second = ProcessorRunner.run(workPath.resolve("second"), sources, options);
+		Assert.assertTrue(second.diagnostics.toString(), second.success);
+
+		Map<String, byte[]> firstFiles = readFiles(first.sourceOutputPath);
+		Assert.assertTrue(firstFiles.values().stream().anyMatch(bytes -> new String(bytes, StandardCharsets.UTF_8).contains("date=\"2014-05-13T16:53Z\"")));
+
+		assertSameFiles(firstFiles, readFiles(second.sourceOutputPath));
+	}
+
+	@Test
+	public void testSameOutputInOtherJVM() throws Throwable
+	{
+		Path javac = findJavac();
+		Assume.assumeTrue("No javac executable found", javac!=null);
+
+		Path workPath = createWorkPath();
+		List<Path> sources = getSources();
+		Map<String,String> options = getReproducibleOptions();
+
+		ProcessorRunner.Result first = ProcessorRunner.run(workPath.resolve("first"), sources, options);
+		Assert.assertTrue(first.diagnostics.toString(), first.success);
+
+		Path sourceOutputPath = Files.createDirectories(workPath.resolve("other").resolve("generated-sources"));
+		Path classOutputPath = Files.createDirectories(workPath.resolve("other").resolve("classes"));
+
+		List<String> command = new ArrayList<String>(Arrays.asList(javac.toString(), "-J-Duser.timezone=Pacific/Chatham", "-J-Duser.language=de", "-J-Duser.country=DE",
+				                                                   "-proc:only", "-parameters", "-encoding", "UTF-8", "-processor", AnnotationProcessor.class.getName(),
+				                                                   "-classpath", System.getProperty("java.class.path"), "-s", sourceOutputPath.toString(), "-d", classOutputPath.toString()));
+		options.forEach((key, value) -> command.add("-A"+key+"="+value));
+		command.addAll(sources.stream().map(Path::toString).collect(Collectors.toList()));
+
+		Path logPath = workPath.resolve("other").resolve("javac.log");
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(logPath.toFile()).start();
+		int exitCode = process.waitFor();
+		Assert.assertEquals(new String(Files.readAllBytes(logPath), StandardCharsets.UTF_8), 0, exitCode);
+
+		assertSameFiles(readFiles(first.sourceOutputPath), readFiles(sourceOutputPath));
+	}
+
+	private List<Path> getSources() throws Throwable
+	{
+		List<Path> sources = new ArrayList<Path>();
+		for (String className : (Iterable<String>)getClassNames(ReproducibleOutputTest.class.getClassLoader(), packageNameForTests)::iterator)
+			sources.add(Paths.get(getSourceUrl(className).toURI()));
+		return sources;
+	}
+
+	private Map<String,String> getReproducibleOptions() throws Exception
+	{
+		Map<String,String> options = getOptions(SimpleAnnotatedInterface.class.getName());
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.OUTPUTEPOCH, outputEpoch);
+
+		// The default source path is relative to the class path which is not the same for a javac process.
+		Path sourceFile = Paths.get(getSourceUrl(SimpleAnnotatedInterface.class.getName()).toURI());
+		Path sourceRoot = sourceFile.getRoot().resolve(sourceFile.subpath(0, sourceFile.getNameCount()-packageNameForTests.split("\\.").length-1));
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.SOURCEPATH, sourceRoot.toString());
+		return options;
+	}
+
+	private Path createWorkPath() throws Exception
+	{
+		return Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("reproducibletest")), nameRule.getMethodName());
+	}
+
+	private static Path findJavac()
+	{
+		Path javaHome = Paths.get(System.getProperty("java.home"));
+		String fileName = File.separatorChar=='\\' ? "javac.exe" : "javac";
+		return Stream.of(javaHome.resolve("bin").resolve(fileName), javaHome.getParent().resolve("bin").resolve(fileName)).filter(Files::isExecutable).findFirst().orElse(null);
+	}
+
+	private static Map<String, byte[]> readFiles(Path root) throws Exception
+	{
+		Map<String, byte[]> result = new TreeMap<String, byte[]>();
+		try (Stream<Path> paths = Files.walk(root))
+		{
+			for (Path path : (Iterable<Path>)paths.filter(Files::isRegularFile)::iterator)
+				result.put(root.relativize(path).toString(), Files.readAllBytes(path));
+		}
+		return result;
+	}
+
+	private static void assertSameFiles(Map<String, byte[]> expected, Map<String, byte[]> actual)
+	{
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(expected.keySet(), actual.keySet());
+
+		for (Map.Entry<String, byte[]> entry : expected.entrySet())
+		{
+			byte[] actualBytes = actual.get(entry.getKey());
+			if (!Arrays.equals(entry.getValue(), actualBytes))
+				Assert.assertEquals(entry.getKey(), new String(entry.getValue(), StandardCharsets.UTF_8), new String(actualBytes, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.test.input.MutableInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test generation for interfaces with members of types that only exist as source in the same compilation (i.e. are not on the class path).
+ *
+ * @author mmc
+ */
+public class SourceOnlyTypesTest extends CompilationTestBase
+{
+	private static final String packageName = "com.fortyoneconcepts.valjogen.test.sourceonly";
+
+	@Test
+	public void testArrayOfSourceOnlyType() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("sourceonlytest")), nameRule.getMethodName());
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve(packageName.replace(".", File.separator)));
+
+		List<Path> sources = new ArrayList<Path>();
+		sources.add(Files.write(packagePath.resolve("Foo.java"), ("package "+packageName+";\n\n"
+		                                                          +"public interface Foo\n{\n"
+		                                                          +"  int getValue();\n"
+		                                                          +"}\n").getBytes(StandardCharsets.UTF_8)));
+		sources.add(Files.write(packagePath.resolve("FooHolder.java"), ("package "+packageName+";\n\n"
+		                                                                +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+		                                                                +"public interface FooHolder\n{\n"
+		                                                                +"  Foo[] getFoos();\n"
+		                                                                +"  int getCount();\n"
+		                                                                +"}\n").getBytes(StandardCharsets.UTF_8)));
+
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath.resolve("out"), sources, getOptions(MutableInterface.class.getName()));
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+
+		String source = result.getGeneratedSource(packageName+".FooHolderImpl");
+		TestSupport.assertContains("Arrays.hashCode(foos)", source);
+		TestSupport.assertContains("Integer.hashCode(count)", source);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic.Kind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.test.input.MutableInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that output rendered directly into generated files is the same as output rendered in memory first (which is needed when
+ * logging the content).
+ *
+ * @author mmc
+ */
+public class StreamingOutputTest extends CompilationTestBase
+{
+	private static final String generatedClassName = MutableInterface.class.getPackage().getName()+".MutableImpl";
+
+	@Test
+	public void testStreamedOutputSameAsLoggedOutput() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("streamingtest")), nameRule.getMethodName());
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+
+		Map<String,String> options = getOptions(MutableInterface.class.getName());
+
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.logLevel, "WARNING");
+		ProcessorRunner.Result streamed = ProcessorRunner.run(workPath.resolve("streamed"), sources, options);
+		Assert.assertTrue(streamed.diagnostics.toString(), streamed.success);
+
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.logLevel, "INFO");
+		ProcessorRunner.Result logged = ProcessorRunner.run(workPath.resolve("logged"), sources, options);
+		Assert.assertTrue(logged.diagnostics.toString(), logged.success);
+
+		// Generated annotation contains the time of generation so ignore that part.
+		String streamedSource = streamed.getGeneratedSource(generatedClassName).replaceAll("date ?= ?\"[^\"]*\"", "");
+		String loggedSource = logged.getGeneratedSource(generatedClassName).replaceAll("date ?= ?\"[^\"]*\"", "");
+
+		Assert.assertEquals(loggedSource, streamedSource);
+	}
+
+	@Test
+	public void testNoFileWhenRenderingFails() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("streamingtest")), nameRule.getMethodName());
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve("com").resolve("fortyoneconcepts").resolve("valjogen").resolve("test").resolve("streaming"));
+
+		// The template is valid but fails when rendered after the start of the class has been written.
+		Files.write(packagePath.resolve("failing.stg"), "@class.after_instance_methods() ::= <%<noSuchTemplate()>%>\n".getBytes(StandardCharsets.UTF_8));
+		Path source = Files.write(packagePath.resolve("Failing.java"), ("package com.fortyoneconcepts.valjogen.test.streaming;\n\n"
+		                                                                 +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+				                                                         +"@com.fortyoneconcepts.valjogen.annotations.VALJOConfigure(customJavaTemplateFileName=\"failing.stg\")\n"
+		                                                                 +"public interface Failing\n{\n"
+				                                                         +"  int getValue();\n"
+		                                                                 +"}\n").getBytes(StandardCharsets.UTF_8));
+
+		Map<String,String> options = getOptions(MutableInterface.class.getName());
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.logLevel, "WARNING");
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.SOURCEPATH, packagePath.toString());
+
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath.resolve("out"), Collections.singletonList(source), options);
+		Assert.assertFalse(result.diagnostics.toString(), result.success);
+		TestSupport.assertContains("noSuchTemplate", result.diagnostics.toString());
+		Assert.assertEquals(result.diagnostics.toString(), 1, result.getMessages(Kind.ERROR).size());
+
+		try (Stream<Path> generated = Files.walk(result.sourceOutputPath)) {
+			Assert.assertFalse(generated.anyMatch(p -> p.toString().endsWith(".java")));
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.integrationtest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.test.input.MutableInterface;
+import com.fortyoneconcepts.valjogen.test.util.CompilationTestBase;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that a timing report is written to the class output when requested.
+ *
+ * @author mmc
+ */
+public class TimingReportTest extends CompilationTestBase
+{
+	@Test
+	public void testCsvReport() throws Exception
+	{
+		ProcessorRunner.Result result = runWithReport("valjogen-timing.csv");
+
+		List<String> lines = Files.readAllLines(result.classOutputPath.resolve("valjogen-timing.csv"), StandardCharsets.UTF_8);
+
+		Assert.assertEquals(2, lines.size());
+		Assert.assertEquals("interface,configurationNanos,resourceloaderNanos,templatesNanos,modelNanos,renderNanos,writeNanos,totalNanos,members,methods,types", lines.get(0));
+		Assert.assertTrue(lines.get(1), lines.get(1).startsWith(MutableInterface.class.getName()+","));
+		Assert.assertEquals(lines.get(1), 11, lines.get(1).split(",").length);
+	}
+
+	@Test
+	public void testJsonReport() throws Exception
+	{
+		ProcessorRunner.Result result = runWithReport("valjogen-timing.json");
+
+		String report = new String(Files.readAllBytes(result.classOutputPath.resolve("valjogen-timing.json")), StandardCharsets.UTF_8);
+
+		Assert.assertTrue(report, report.trim().startsWith("["));
+		Assert.assertTrue(report, report.contains("\"interface\": \""+MutableInterface.class.getName()+"\""));
+		Assert.assertTrue(report, report.contains("\"renderNanos\": "));
+	}
+
+	private ProcessorRunner.Result runWithReport(String reportName) throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("timingtest")), nameRule.getMethodName());
+		List<Path> sources = Collections.singletonList(Paths.get(getSourceUrl(MutableInterface.class.getName()).toURI()));
+
+		Map<String,String> options = getOptions(MutableInterface.class.getName());
+		options.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.TIMINGREPORT, reportName);
+
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, options);
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+
+		Assert.assertTrue(result.getMessages(Diagnostic.Kind.NOTE).toString(), result.getMessages(Diagnostic.Kind.NOTE).stream().anyMatch(m -> m.startsWith("VALJOGen timing: 1 interface(s)") && m.contains(MutableInterface.class.getName())));
+
+		return result;
+	}
+}
@@ -102,6 +102,40 @@ public class ClazzTest
 		Assert.assertFalse(clazz.hasStaticMethod("compareTo(Testclass)"));
 	}
 
+	@Test
+	public void testTryGetMemberAndMethod() {
+		ComparableTestClazz clazz = new ComparableTestClazz("testpackage.Testclass");
+
+		Assert.assertSame(clazz.getMembers().get(1), clazz.tryGetMember("testStaticMember"));
+		Assert.assertNull(clazz.tryGetMember("noMember"));
+		Assert.assertSame(clazz.getMethods().get(0), clazz.tryGetMethod("compareTo"));
+		Assert.assertNull(clazz.tryGetMethod("noMethod"));
+	}
+
+	@Test
+	public void testOtherMembers() {
+		ComparableTestClazz clazz = new ComparableTestClazz("testpackage.Testclass");
+		Member instanceMember = clazz.tryGetMember("testInstanceMember");
+		Member staticMember = clazz.tryGetMember("testStaticMember");
+
+		Assert.assertEquals(Collections.emptyList(), instanceMember.getOtherMembersBeforeThis());
+		Assert.assertEquals(Arrays.asList(staticMember), instanceMember.getOtherMembersAfterThis());
+		Assert.assertEquals(Arrays.asList(instanceMember), staticMember.getOtherMembersBeforeThis());
+		Assert.assertEquals(Collections.emptyList(), staticMember.getOtherMembersAfterThis());
+	}
+
+	@Test
+	public void testDerivedMemberQueries() {
+		ComparableTestClazz clazz = new ComparableTestClazz("testpackage.Testclass");
+
+		Assert.assertTrue(clazz.hasPrimitiveMembers());
+		Assert.assertFalse(clazz.hasArrayMembers());
+		Assert.assertTrue(clazz.getConstructors().isEmpty());
+		Assert.assertSame(clazz.getConstructors(), clazz.getConstructors());
+		Assert.assertEquals(clazz.getMembers(), clazz.getMembersIncludingInherited());
+		Assert.assertSame(clazz.getMembersIncludingInherited(), clazz.getMembersIncludingInherited());
+	}
+
     /*
      *  Test class that extends Comparable
      */
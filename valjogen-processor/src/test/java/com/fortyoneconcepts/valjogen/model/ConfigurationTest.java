@@ -6,15 +6,19 @@ package com.fortyoneconcepts.valjogen.model;
 import java.lang.reflect.*;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 
 import javax.lang.model.SourceVersion;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.concat;
 
@@ -29,6 +33,7 @@ import com.fortyoneconcepts.valjogen.model.ConfigurationDefaults;
 import com.fortyoneconcepts.valjogen.model.ConfigurationMacros;
 import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
 import com.fortyoneconcepts.valjogen.model.util.AnnotationProxyBuilder;
+import com.fortyoneconcepts.valjogen.model.util.NamesUtil;
 
 /**
  * Test configuration aspects
@@ -139,7 +144,10 @@ public class ConfigurationTest
 
 			Configuration configuration = new Configuration(sourceElementName, SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
 
-			String[] values = { null, ThisReference.class.getName(), sourceElementName, String.format("%tFT%<tRZ", configuration.getExecutionDate()) };
+			Calendar executionDate = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+			executionDate.setTime(configuration.getExecutionDate());
+
+			String[] values = { null, ThisReference.class.getName(), sourceElementName, String.format("%tFT%<tRZ", executionDate) };
 
 			String actualExpandedValue = configuration.getComment();
 			String expectedExpandedValue = values[i];
@@ -147,4 +155,84 @@ public class ConfigurationTest
 			Assert.assertEquals(expectedExpandedValue, actualExpandedValue);
 		}
 	}
+
+	@Test
+	public void testOutputEpochPinsExecutionDate() throws Exception
+	{
+		configurationOptions.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.OUTPUTEPOCH, "1400000000");
+		configurationOptions.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.comment, ConfigurationMacros.ExecutionDateMacro);
+
+		Configuration configuration1 = new Configuration("test", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+		Thread.sleep(5);
+		Configuration configuration2 = new Configuration("test", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+
+		Assert.assertEquals(1400000000000L, configuration1.getExecutionDate().getTime());
+		Assert.assertEquals(configuration1.getExecutionDate(), configuration2.getExecutionDate());
+		Assert.assertEquals("2014-05-13T16:53Z", configuration1.getComment());
+	}
+
+	@Test
+	public void testFindMethodAnnotationsSameAsFilteredMethodAnnotations() throws Exception
+	{
+		configurationOptions.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.methodAnnotations, "*(**)=@A,getValue()=@B,setValue(java.util.List)=@C,*(int)=@D");
+
+		Configuration configuration = new Configuration("test", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+
+		String[] overloadNames = { "getValue()", "setValue(List)", "setValue(int)", "hashCode()" };
+		for (String overloadName : overloadNames)
+		{
+			List<String> expected = configuration.getMethodAnnotations(p -> NamesUtil.matchingOverloads(p, overloadName, true)).stream().map(p -> p.getValue()).collect(toList());
+			Assert.assertEquals(expected, configuration.findMethodAnnotations(overloadName));
+		}
+	}
+
+	@Test
+	public void testMacroValuesExpandedOncePerConfiguration() throws Exception
+	{
+		configurationOptions.put(ConfigurationDefaults.OPTION_QUALIFIER+ConfigurationOptionKeys.comment, "For "+ConfigurationMacros.MasterInterfaceMacro);
+
+		Configuration configuration1 = new Configuration("test1", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+		Configuration configuration2 = new Configuration("test2", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+
+		Assert.assertEquals("For test1", configuration1.getComment());
+		Assert.assertSame(configuration1.getComment(), configuration1.getComment());
+		Assert.assertEquals("For test2", configuration2.getComment());
+	}
+
+	/**
+	 * Every setting must either be listed as affecting the generated source or be known to only affect how the processor runs, so new settings are
+	 * never left out of (or added to) the generation cache fingerprint by accident.
+	 */
+	@Test
+	public void testAllSettingsClassifiedAsOutputOrProcessorOnly() throws Exception
+	{
+		Set<String> processorOnly = new HashSet<String>(Arrays.asList("logLevel", "logFile", "debugStringTemplatesEnabled", "warningAboutSynthesisedNamesEnabled",
+		                                                              "sourcePath", "timingReport", "renderThreads", "maxInFlight", "cacheDir", "warmCacheSize",
+		                                                              "dependencyFilesEnabled"));
+
+		Configuration configuration = new Configuration("test", SourceVersion.latest(), generate, configure, Locale.ENGLISH, configurationOptions);
+		Set<String> outputValues = configuration.getOutputValues().keySet();
+
+		for (java.lang.reflect.Method getter : Configuration.class.getMethods())
+		{
+			if (getter.getDeclaringClass()!=Configuration.class || getter.getParameterCount()!=0 || java.lang.reflect.Modifier.isStatic(getter.getModifiers()))
+				continue;
+
+			String name = getter.getName();
+			if (name.equals("getOutputValues"))
+				continue;
+
+			String propertyName = name.startsWith("is") ? name.substring(2) : name.startsWith("get") ? name.substring(3) : null;
+			if (propertyName==null)
+				continue;
+
+			propertyName = Character.toLowerCase(propertyName.charAt(0))+propertyName.substring(1);
+			if (propertyName.equals("localeTag"))
+				propertyName = "locale";
+			else if (propertyName.startsWith("targetSourceVersionJava"))
+				propertyName = "targetSourceVersion";
+
+			Assert.assertTrue("Setting "+propertyName+" must be added to Configuration.getOutputValues() or this test", outputValues.contains(propertyName) || processorOnly.contains(propertyName));
+		}
+	}
 }
@@ -52,6 +52,50 @@ public class TypeTest
 		Assert.assertTrue(type.hasInstanceMethod("compareTo(*)"));
 	}
 
+	@Test
+	public void testHasInstanceMethodWithQualifiedJavaLangParameter()
+	{
+		Type type = new TestType("java.lang.Comparable");
+
+		Assert.assertTrue(type.hasInstanceMethod("compareTo(java.lang.Object)"));
+		Assert.assertTrue(type.hasInstanceMethod(" compareTo( Object ) "));
+	}
+
+	@Test
+	public void testHasInstanceMethodWithoutParameterList()
+	{
+		Type type = new TestType("java.lang.Object");
+
+		Assert.assertTrue(type.hasInstanceMethod("hashCode"));
+		Assert.assertFalse(type.hasInstanceMethod("equals"));
+	}
+
+	@Test
+	public void testReflectionInfoReusedForSameType()
+	{
+		Type type1 = new TestType("java.util.Locale");
+		Type type2 = new TestType("java.util.Locale");
+
+		Assert.assertTrue(type1.isOfType("java.io.Serializable"));
+		Assert.assertSame(ReflectionIndex.get("java.util.Locale"), ReflectionIndex.get(type2.getQualifiedName()));
+	}
+
+	@Test
+	public void testReflectionInfoOfRecentlyUsedTypesKeptWhenIndexIsFull()
+	{
+		ReflectionIndex.Entry entry = ReflectionIndex.get("java.util.Locale");
+
+		for (int i=0; i<ReflectionIndex.maxEntries; ++i)
+		{
+			if (i%100==0)
+				Assert.assertSame(entry, ReflectionIndex.get("java.util.Locale"));
+			ReflectionIndex.get("com.fortyoneconcepts.valjogen.test.Missing"+i);
+		}
+
+		Assert.assertEquals(ReflectionIndex.maxEntries, ReflectionIndex.size());
+		Assert.assertSame(entry, ReflectionIndex.get("java.util.Locale"));
+	}
+
 	@Test
 	public void testNotHasInstanceMethod() {
 		Type type = new TestType("java.lang.Comparable");
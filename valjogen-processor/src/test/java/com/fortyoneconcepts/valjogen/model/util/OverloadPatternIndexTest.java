@@ -0,0 +1,63 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.model.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests that overload name patterns are found like when matching all patterns with {@link NamesUtil#matchingOverloads(String, String, boolean)}.
+ *
+ * @author mmc
+ */
+public class OverloadPatternIndexTest
+{
+	@Test
+	public void testExactMatch()
+	{
+		OverloadPatternIndex<String> index = new OverloadPatternIndex<String>(true);
+		index.add("getValue()", "a");
+		index.add("setValue(int)", "b");
+
+		Assert.assertEquals(Arrays.asList("a"), index.get("getValue()"));
+		Assert.assertEquals(Arrays.asList("b"), index.get("setValue(int)"));
+		Assert.assertEquals(Collections.emptyList(), index.get("setValue(long)"));
+	}
+
+	@Test
+	public void testWildcardsInPatternOrderPreserved()
+	{
+		OverloadPatternIndex<String> index = new OverloadPatternIndex<String>(true);
+		index.add("*(**)", "a");
+		index.add("setValue(*)", "b");
+		index.add("*(int)", "c");
+		index.add("getValue()", "d");
+
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), index.get("setValue(int)"));
+		Assert.assertEquals(Arrays.asList("a", "d"), index.get("getValue()"));
+	}
+
+	@Test
+	public void testWildcardInOverloadName()
+	{
+		OverloadPatternIndex<String> index = new OverloadPatternIndex<String>(true);
+		index.add("setValue(int)", "a");
+		index.add("getValue()", "b");
+		index.add("setOther(int)", "c");
+
+		Assert.assertEquals(Arrays.asList("a", "c"), index.get("*(int)"));
+	}
+
+	@Test
+	public void testPackagesIgnored()
+	{
+		OverloadPatternIndex<String> index = new OverloadPatternIndex<String>(true);
+		index.add(" setValue(java.util.List) ", "a");
+
+		Assert.assertEquals(Arrays.asList("a"), index.get("setValue(List)"));
+	}
+}
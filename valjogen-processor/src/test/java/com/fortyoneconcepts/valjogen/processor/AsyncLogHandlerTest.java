@@ -0,0 +1,95 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that the asynchronous log handler writes all records in order and drops only detailed records when it can not keep up.
+ *
+ * @author mmc
+ */
+public class AsyncLogHandlerTest
+{
+	@Test
+	public void testRecordsWrittenInOrder() throws Exception
+	{
+		Path logFile = createLogFile("testRecordsWrittenInOrder");
+		AsyncLogHandler handler = createHandler(logFile, AsyncLogHandler.defaultCapacity);
+		try {
+			for (int i=0; i<2000; ++i)
+				handler.publish(new LogRecord(i%2==0 ? Level.FINE : Level.INFO, "record "+i));
+			handler.flush();
+
+			List<String> messages = readMessages(logFile);
+			Assert.assertEquals(2000, messages.size());
+			for (int i=0; i<messages.size(); ++i)
+				Assert.assertEquals("record "+i, messages.get(i));
+		} finally {
+			handler.close();
+		}
+	}
+
+	@Test
+	public void testDetailedRecordsDroppedWhenFull() throws Exception
+	{
+		Path logFile = createLogFile("testDetailedRecordsDroppedWhenFull");
+		AsyncLogHandler handler = createHandler(logFile, 4);
+		try {
+			// Block the writer thread by holding the lock of the file handler.
+			synchronized (handler.getTarget()) {
+				for (int i=0; i<100; ++i)
+					handler.publish(new LogRecord(Level.FINE, "record "+i));
+
+				Assert.assertTrue(handler.getPendingDropCount()>0);
+			}
+
+			handler.publish(new LogRecord(Level.WARNING, "important"));
+			handler.flush();
+
+			List<String> messages = readMessages(logFile);
+			Assert.assertTrue(messages.toString(), messages.size()<100);
+			Assert.assertTrue(messages.toString(), messages.stream().anyMatch(m -> m.startsWith("VALJOGen dropped ")));
+			Assert.assertTrue(messages.toString(), messages.contains("important"));
+		} finally {
+			handler.close();
+		}
+	}
+
+	private static AsyncLogHandler createHandler(Path logFile, int capacity) throws Exception
+	{
+		KnownFileHandler fileHandler = new KnownFileHandler(logFile.toString(), false);
+		fileHandler.setFormatter(new SimpleFormatter());
+		fileHandler.setLevel(Level.FINEST);
+		return new AsyncLogHandler(fileHandler, capacity);
+	}
+
+	private static Path createLogFile(String name) throws Exception
+	{
+		Path logFile = Files.createDirectories(TestSupport.getTargetPath().resolve("logs")).resolve("asynclogtest-"+name+".log");
+		Files.deleteIfExists(logFile);
+		return logFile;
+	}
+
+	/**
+	 * Return the messages of the log file, which are the second line of each record written by the simple formatter.
+	 */
+	private static List<String> readMessages(Path logFile) throws Exception
+	{
+		List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+		return lines.stream().filter(l -> l.contains(": ")).map(l -> l.substring(l.indexOf(": ")+2)).collect(Collectors.toList());
+	}
+}
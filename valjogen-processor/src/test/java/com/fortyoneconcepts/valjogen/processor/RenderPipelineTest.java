@@ -0,0 +1,93 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test that the render pipeline keeps output in order and bounds the number of models and outputs held in memory.
+ *
+ * @author mmc
+ */
+public class RenderPipelineTest
+{
+	private static final int threads = 2;
+	private static final int maxInFlight = 4;
+
+	@Test
+	public void testOutputInSubmittedOrder() throws Exception
+	{
+		List<String> written = new ArrayList<String>();
+		RenderPipeline pipeline = createPipeline(maxInFlight, written);
+		try {
+			List<String> expected = new ArrayList<String>();
+			for (int i=0; i<50; ++i)
+			{
+				String fileName = "Class"+i;
+				expected.add(fileName);
+				if (i%3==0)
+					pipeline.submitRendered(null, fileName, "rendered "+i);
+				else pipeline.submit(null, fileName, () -> "rendered "+fileName, true);
+			}
+			pipeline.drain();
+
+			Assert.assertEquals(expected, written);
+			Assert.assertTrue("Peak "+pipeline.getPeakInFlight(), pipeline.getPeakInFlight()<=maxInFlight);
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void testRetainedModelsAndOutputDoNotGrowWithInterfaceCount() throws Exception
+	{
+		Assert.assertEquals(maxInFlight, getMaxRetained(20, maxInFlight));
+		Assert.assertEquals(maxInFlight, getMaxRetained(400, maxInFlight));
+
+		// Check that the measurement works by retaining everything.
+		Assert.assertEquals(400, getMaxRetained(400, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Submit renderings and check after each submission that the pipeline only holds the renderings that have not been handed on yet,
+	 * i.e. that it drops each model and output at the point it is written.
+	 *
+	 * @return The maximum number of renderings held by the pipeline.
+	 */
+	private static int getMaxRetained(int count, int maxInFlight) throws Exception
+	{
+		List<String> written = new ArrayList<String>();
+		int maxRetained = 0;
+
+		RenderPipeline pipeline = createPipeline(maxInFlight, written);
+		try {
+			for (int i=0; i<count; ++i)
+			{
+				String fileName = "Class"+i;
+				pipeline.submit(null, fileName, () -> "rendered "+fileName, true);
+
+				int retained = pipeline.getInFlight();
+				Assert.assertEquals("Renderings held after "+(i+1)+" submitted", i+1-written.size(), retained);
+				maxRetained = Math.max(maxRetained, retained);
+			}
+
+			pipeline.drain();
+			Assert.assertEquals(count, written.size());
+			Assert.assertEquals(0, pipeline.getInFlight());
+
+			return maxRetained;
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	private static RenderPipeline createPipeline(int maxInFlight, List<String> written)
+	{
+		return new RenderPipeline(threads, maxInFlight, (element, fileName, output) -> written.add(fileName), (element, fileName, renderer) -> written.add(fileName), (element, e) -> Assert.fail(e.toString()));
+	}
+}
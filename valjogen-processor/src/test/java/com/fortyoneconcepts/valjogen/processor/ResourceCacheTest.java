@@ -0,0 +1,85 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that resource loaders in the same compilation share resolved source paths and file contents.
+ *
+ * @author mmc
+ */
+public class ResourceCacheTest
+{
+	private static final String packagePath = "com/fortyoneconcepts/valjogen/test/input";
+
+	@Test
+	public void testSourcePathsAndContentAreShared() throws Exception
+	{
+		Path sourcePath = createSourcePath("testSourcePathsAndContentAreShared");
+		Files.write(sourcePath.resolve("Header.txt"), "// Header".getBytes(StandardCharsets.UTF_8));
+
+		ResourceCache cache = new ResourceCache();
+		ResourceLoader loader1 = new ResourceLoader(sourcePath.toString(), packagePath, cache);
+		ResourceLoader loader2 = new ResourceLoader(sourcePath.toString(), packagePath, cache);
+
+		Assert.assertSame(cache.getSourcePaths(sourcePath.toString(), packagePath), cache.getSourcePaths(sourcePath.toString(), packagePath));
+
+		String text1 = loader1.getResourceAsText("Header.txt");
+		String text2 = loader2.getResourceAsText("Header.txt");
+
+		Assert.assertSame(text1, text2);
+		Assert.assertEquals(1, cache.getContentReads());
+		Assert.assertEquals(1, cache.getContentHits());
+	}
+
+	@Test
+	public void testModifiedFileIsReadAgain() throws Exception
+	{
+		Path sourcePath = createSourcePath("testModifiedFileIsReadAgain");
+		Path file = sourcePath.resolve("Header.txt");
+		Files.write(file, "// Old".getBytes(StandardCharsets.UTF_8));
+
+		ResourceCache cache = new ResourceCache();
+		ResourceLoader loader = new ResourceLoader(sourcePath.toString(), packagePath, cache);
+
+		Assert.assertEquals("// Old"+System.lineSeparator(), loader.getResourceAsText("Header.txt"));
+
+		Files.write(file, "// New".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis()+10000));
+
+		Assert.assertEquals("// New"+System.lineSeparator(), loader.getResourceAsText("Header.txt"));
+		Assert.assertEquals(2, cache.getContentReads());
+	}
+
+	@Test
+	public void testTextHasPlatformLineEndings() throws Exception
+	{
+		Path sourcePath = createSourcePath("testTextHasPlatformLineEndings");
+		Files.write(sourcePath.resolve("Lines.txt"), "a\r\nb\nc\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(sourcePath.resolve("Empty.txt"), new byte[0]);
+
+		ResourceLoader loader = new ResourceLoader(sourcePath.toString(), packagePath, new ResourceCache());
+
+		String nl = System.lineSeparator();
+		Assert.assertEquals("a"+nl+"b"+nl+"c"+nl, loader.getResourceAsText("Lines.txt"));
+		Assert.assertEquals("", loader.getResourceAsText("Empty.txt"));
+	}
+
+	private static Path createSourcePath(String name) throws Exception
+	{
+		Path sourcePath = Files.createDirectories(TestSupport.getTargetPath().resolve("resourcecachetest").resolve(name));
+		for (String fileName : new String[] { "Header.txt", "Lines.txt", "Empty.txt" })
+			Files.deleteIfExists(sourcePath.resolve(fileName));
+		return sourcePath;
+	}
+}
@@ -1,7 +1,13 @@
 package com.fortyoneconcepts.valjogen.processor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.*;
 import org.stringtemplate.v4.*;
+import org.stringtemplate.v4.misc.ErrorType;
+import org.stringtemplate.v4.misc.ObjectModelAdaptor;
+import org.stringtemplate.v4.misc.STMessage;
 
 import com.fortyoneconcepts.valjogen.model.*;
 
@@ -135,6 +141,124 @@ public class STCustomModelAdaptorTest
 		verify(type).isPrimitive();
 	}
 
+	@Test
+	public void testMagicPropertyEvaluatedOncePerRender()
+	{
+		STCustomModelAdaptor adapter = new STCustomModelAdaptor();
+
+		Type type = mock(Type.class);
+
+		execute(adapter, type, "<type.ofType_java_io_Serializable><type.ofType_java_io_Serializable><type.staticMember_BlaBla><type.staticMember_BlaBla>");
+
+		verify(type, times(1)).isOfType("java.io.Serializable");
+		verify(type, times(1)).hasStaticMember("BlaBla");
+
+		adapter.clearRenderCache();
+
+		execute(adapter, type, "<type.ofType_java_io_Serializable>");
+
+		verify(type, times(2)).isOfType("java.io.Serializable");
+	}
+
+	@Test
+	public void testPropertyConventionsOfPublicClass()
+	{
+		Assert.assertEquals("name:true:true:x", render(new PublicBean(), "<bean.name>:<bean.flag>:<bean.thing>:<bean.field>"));
+
+		Assert.assertTrue(STCustomModelAdaptor.isCompiled(PublicBean.class, "name"));
+		Assert.assertTrue(STCustomModelAdaptor.isCompiled(PublicBean.class, "flag"));
+		Assert.assertTrue(STCustomModelAdaptor.isCompiled(PublicBean.class, "thing"));
+	}
+
+	@Test
+	public void testPropertyConventionsOfNonPublicClass()
+	{
+		Assert.assertEquals("name:true:true", render(new PrivateBean(), "<bean.name>:<bean.flag>:<bean.thing>"));
+	}
+
+	@Test
+	public void testPropertyOfMockedType()
+	{
+		Type type = mock(Type.class);
+		when(type.getName()).thenReturn("Mocked");
+
+		Assert.assertEquals("Mocked", render(type, "<bean.name>"));
+		Assert.assertTrue(STCustomModelAdaptor.isCompiled(type.getClass(), "name"));
+	}
+
+	@Test
+	public void testFailingGetterReportedLikeObjectModelAdaptor()
+	{
+		List<STMessage> compiledErrors = new ArrayList<STMessage>();
+		List<STMessage> reflectiveErrors = new ArrayList<STMessage>();
+
+		Assert.assertEquals("[]", render(new FailingBean(), "[<bean.broken>]", new STCustomModelAdaptor(), compiledErrors));
+		Assert.assertEquals("[]", render(new FailingBean(), "[<bean.broken>]", new ObjectModelAdaptor(), reflectiveErrors));
+
+		Assert.assertTrue(STCustomModelAdaptor.isCompiled(FailingBean.class, "broken"));
+		Assert.assertEquals(1, compiledErrors.size());
+		Assert.assertEquals(reflectiveErrors.size(), compiledErrors.size());
+		Assert.assertEquals(ErrorType.NO_SUCH_PROPERTY, compiledErrors.get(0).error);
+		Assert.assertEquals(reflectiveErrors.get(0).error, compiledErrors.get(0).error);
+	}
+
+	/**
+	 * Model like class with the property conventions used by templates.
+	 */
+	public static class PublicBean
+	{
+		public String field = "x";
+
+		public String getName() { return "name"; }
+		public boolean isFlag() { return true; }
+		public boolean hasThing() { return true; }
+	}
+
+	private static class PrivateBean
+	{
+		@SuppressWarnings("unused")
+		public String getName() { return "name"; }
+		@SuppressWarnings("unused")
+		public boolean isFlag() { return true; }
+		@SuppressWarnings("unused")
+		public boolean hasThing() { return true; }
+	}
+
+	public static class FailingBean
+	{
+		public String getBroken() throws Exception { throw new Exception("broken"); }
+	}
+
+	private final static String render(Object bean, String templateMethodContent, ModelAdaptor adaptor, List<STMessage> runtimeErrors)
+	{
+		String templateStr = "test(bean) ::= <%"+templateMethodContent+"%>\n";
+		STGroup g = new STGroupString(templateStr);
+		g.setListener(new STErrorListener() {
+			@Override
+			public void compileTimeError(STMessage msg) { Assert.fail(msg.toString()); }
+			@Override
+			public void runTimeError(STMessage msg) { runtimeErrors.add(msg); }
+			@Override
+			public void IOError(STMessage msg) { Assert.fail(msg.toString()); }
+			@Override
+			public void internalError(STMessage msg) { Assert.fail(msg.toString()); }
+		});
+		g.registerModelAdaptor(Object.class, adaptor);
+		ST template = g.getInstanceOf("test");
+		template.add("bean", bean);
+		return template.render();
+	}
+
+	private final static String render(Object bean, String templateMethodContent)
+	{
+		String templateStr = "test(bean) ::= <%"+templateMethodContent+"%>\n";
+		STGroup g = new STGroupString(templateStr);
+		g.registerModelAdaptor(Object.class, new STCustomModelAdaptor());
+		ST template = g.getInstanceOf("test");
+		template.add("bean", bean);
+		return template.render();
+	}
+
 	private final static void execute(STCustomModelAdaptor adapter, Type type, String templateMethodContent)
 	{
 		String templateStr = "test(type) ::= <%"+templateMethodContent+"%>\n";
@@ -0,0 +1,119 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+import javax.lang.model.SourceVersion;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.stringtemplate.v4.STGroup;
+
+import com.fortyoneconcepts.valjogen.annotations.VALJOConfigure;
+import com.fortyoneconcepts.valjogen.annotations.VALJOGenerate;
+import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.model.ConfigurationOptionKeys;
+import com.fortyoneconcepts.valjogen.model.util.AnnotationProxyBuilder;
+
+/**
+ * Test that templates are only loaded once per distinct template configuration.
+ *
+ * @author mmc
+ */
+public class STTemplateCacheTest
+{
+	private static final String inputPackagePath = "com/fortyoneconcepts/valjogen/test/input";
+
+	@Test
+	public void testDefaultTemplatesAreShared() throws Exception
+	{
+		STTemplateCache cache = new STTemplateCache();
+
+		Configuration cfg1 = createConfiguration(null);
+		Configuration cfg2 = createConfiguration(null);
+
+		STTemplates templates1 = cache.getTemplates(new ResourceLoader(cfg1.getSourcePath(), inputPackagePath), cfg1);
+		STTemplates templates2 = cache.getTemplates(new ResourceLoader(cfg2.getSourcePath(), inputPackagePath), cfg2);
+
+		Assert.assertSame(templates1, templates2);
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testCustomTemplatesAreCachedSeparately() throws Exception
+	{
+		STTemplateCache cache = new STTemplateCache();
+
+		Configuration defaultCfg = createConfiguration(null);
+		Configuration customCfg1 = createConfiguration("custom_template.stg");
+		Configuration customCfg2 = createConfiguration("custom_template.stg");
+
+		STTemplates defaultTemplates = cache.getTemplates(new ResourceLoader(defaultCfg.getSourcePath(), inputPackagePath), defaultCfg);
+		STTemplates customTemplates1 = cache.getTemplates(new ResourceLoader(customCfg1.getSourcePath(), inputPackagePath), customCfg1);
+		STTemplates customTemplates2 = cache.getTemplates(new ResourceLoader(customCfg2.getSourcePath(), inputPackagePath), customCfg2);
+
+		Assert.assertNotSame(defaultTemplates, customTemplates1);
+		Assert.assertSame(customTemplates1, customTemplates2);
+		Assert.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testSharedCacheIsBoundedAndCanBeCleared() throws Exception
+	{
+		STTemplateCache.clearShared();
+		try {
+			STTemplateCache cache = STTemplateCache.getShared(2);
+			Assert.assertSame(cache, STTemplateCache.getShared(2));
+
+			Configuration defaultCfg = createConfiguration(null);
+			STTemplates defaultTemplates = cache.getTemplates(new ResourceLoader(defaultCfg.getSourcePath(), inputPackagePath), defaultCfg);
+
+			for (String customTemplateFileName : new String[] { "custom_template.stg", "custom_overload.stg" })
+			{
+				Configuration customCfg = createConfiguration(customTemplateFileName);
+				cache.getTemplates(new ResourceLoader(customCfg.getSourcePath(), inputPackagePath), customCfg);
+			}
+
+			Assert.assertEquals(2, cache.size());
+			Assert.assertNotSame(defaultTemplates, cache.getTemplates(new ResourceLoader(defaultCfg.getSourcePath(), inputPackagePath), defaultCfg));
+
+			STTemplateCache.clearShared();
+			Assert.assertNotSame(cache, STTemplateCache.getShared(2));
+		} finally {
+			STTemplateCache.clearShared();
+		}
+	}
+
+	@Test
+	public void testGroupOfEndedThreadIsReused() throws Exception
+	{
+		Configuration cfg = createConfiguration(null);
+		STTemplates templates = new STTemplates(new ResourceLoader(cfg.getSourcePath(), inputPackagePath), cfg);
+
+		STGroup[] groups = new STGroup[2];
+		for (int i=0; i<groups.length; ++i)
+		{
+			int index = i;
+			Thread thread = new Thread(() -> groups[index]=templates.getSTGroup());
+			thread.start();
+			thread.join();
+		}
+
+		Assert.assertNotNull(groups[0]);
+		Assert.assertSame(groups[0], groups[1]);
+	}
+
+	private static Configuration createConfiguration(String customTemplateFileName)
+	{
+		VALJOGenerate generate = new AnnotationProxyBuilder<VALJOGenerate>(VALJOGenerate.class).build();
+
+		AnnotationProxyBuilder<VALJOConfigure> configureBuilder = new AnnotationProxyBuilder<VALJOConfigure>(VALJOConfigure.class);
+		if (customTemplateFileName!=null)
+			configureBuilder = configureBuilder.add(ConfigurationOptionKeys.customJavaTemplateFileName, customTemplateFileName);
+
+		return new Configuration("com.fortyoneconcepts.valjogen.test.input.EmptyInterface", SourceVersion.RELEASE_8, generate, configureBuilder.build(), Locale.ENGLISH, new HashMap<String,String>());
+	}
+}
@@ -0,0 +1,50 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that the fingerprint of the processor code changes whenever the code does.
+ *
+ * @author mmc
+ */
+public class SourceFingerprintTest
+{
+	@Test
+	public void testChangedClassInDirectoryChangesHash() throws Exception
+	{
+		Path location = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("fingerprinttest")), "classes");
+		Path file = Files.createDirectories(location.resolve("templates")).resolve("main.stg");
+
+		Files.write(file, "class() ::= <<a>>".getBytes(StandardCharsets.UTF_8));
+		FileTime time = Files.getLastModifiedTime(file);
+		FileTime directoryTime = Files.getLastModifiedTime(location);
+		byte[] before = hash(location);
+
+		// Same size and timestamps, different content.
+		Files.write(file, "class() ::= <<b>>".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, time);
+		Files.setLastModifiedTime(location, directoryTime);
+
+		Assert.assertFalse(Arrays.equals(before, hash(location)));
+	}
+
+	private static byte[] hash(Path location) throws Exception
+	{
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		SourceFingerprint.addCodeLocation(digest, location);
+		return digest.digest();
+	}
+}
@@ -0,0 +1,127 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor.builders;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.annotations.VALJOGenerate;
+import com.fortyoneconcepts.valjogen.model.BasicClazz;
+import com.fortyoneconcepts.valjogen.model.Clazz;
+import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.model.Type;
+import com.fortyoneconcepts.valjogen.processor.ResourceLoader;
+import com.fortyoneconcepts.valjogen.processor.STTemplates;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that members and methods of detailed types are only resolved when accessed.
+ *
+ * @author mmc
+ */
+public class LazyTypeContentTest
+{
+	private static final String packageName = "com.fortyoneconcepts.valjogen.test.lazy";
+
+	/**
+	 * Processor that builds a model and checks the content of the type of its only member while javax.lang.model.* instances are valid.
+	 */
+	private static final class ModelBuildingProcessor extends AbstractProcessor
+	{
+		private final List<String> errors = new ArrayList<String>();
+
+		@Override
+		public Set<String> getSupportedAnnotationTypes()
+		{
+			return Collections.singleton(VALJOGenerate.class.getName());
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion()
+		{
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+		{
+			for (Element e : roundEnv.getElementsAnnotatedWith(VALJOGenerate.class))
+			{
+				try {
+					Configuration configuration = new Configuration(e.asType().toString(), processingEnv.getSourceVersion(), e.getAnnotation(VALJOGenerate.class), Locale.ENGLISH, new HashMap<String,String>());
+					ResourceLoader resourceLoader = new ResourceLoader(null, packageName.replace(".", File.separator));
+					STTemplates templates = new STTemplates(resourceLoader, configuration);
+
+					ModelBuilder builder = new ModelBuilder(processingEnv.getTypeUtils(), processingEnv.getElementUtils(), (element, kind, msg) -> {
+						if (kind==Kind.ERROR)
+							errors.add(msg);
+					}, (TypeElement)e, configuration, resourceLoader, templates);
+
+					Clazz clazz = builder.buildNewCLazz();
+
+					Type memberType = clazz.getMembers().get(0).getType();
+					Assert.assertTrue(memberType.toString(), memberType instanceof BasicClazz);
+
+					BasicClazz listType = (BasicClazz)memberType;
+					BasicClazz listBaseType = (BasicClazz)listType.getBaseClazzType();
+					Assert.assertFalse(listType.isContentResolved());
+					Assert.assertFalse(listBaseType.isContentResolved());
+
+					Assert.assertNotNull(listType.tryGetMethod("trimToSize"));
+					Assert.assertSame(listType.getMethods(), listType.getMethods());
+					Assert.assertNotNull(listType.tryGetMember("elementData"));
+					Assert.assertTrue(listType.isContentResolved());
+					Assert.assertFalse(listBaseType.isContentResolved());
+
+					builder.resolveContent();
+					Assert.assertTrue(listBaseType.isContentResolved());
+					Assert.assertNotNull(listBaseType.tryGetMember("modCount"));
+				} catch (Exception | AssertionError ex) {
+					errors.add(ex.toString());
+				}
+			}
+
+			return true;
+		}
+	}
+
+	@Test
+	public void testContentOfDetailedTypesIsResolvedWhenAccessed() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("lazytest")), "model");
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve(packageName.replace(".", File.separator)));
+
+		String annotated = "package "+packageName+";\n\n"
+		                   +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+				           +"public interface ListHolder\n{\n"
+		                   +"  java.util.ArrayList<String> getList();\n"
+				           +"}\n";
+		Path source = Files.write(packagePath.resolve("ListHolder.java"), annotated.getBytes(StandardCharsets.UTF_8));
+
+		ModelBuildingProcessor processor = new ModelBuildingProcessor();
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, Collections.singletonList(source), processor);
+
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+		Assert.assertTrue(processor.errors.toString(), processor.errors.isEmpty());
+	}
+}
@@ -0,0 +1,185 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor.builders;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.annotations.VALJOGenerate;
+import com.fortyoneconcepts.valjogen.model.Clazz;
+import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.processor.ResourceLoader;
+import com.fortyoneconcepts.valjogen.processor.STTemplates;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that building models scales near-linearly with the number of methods in wide interface hierarchies. Rather than timing the build, which
+ * depends on the machine, the test counts the calls to the javax.lang.model operations that made building quadratic: checking pairs of methods for
+ * overriding and looking up javadoc (which searches the source of the declaring type on every call).
+ *
+ * @author mmc
+ */
+public class ModelBuilderScalingTest
+{
+	private static final String packageName = "com.fortyoneconcepts.valjogen.test.scaling";
+	private static final int traitCount = 20;
+
+	/**
+	 * Processor that only builds models and counts the override checks and javadoc lookups made while doing so.
+	 */
+	private static final class ModelBuildingProcessor extends AbstractProcessor
+	{
+		private int overrideChecks;
+		private int docCommentLookups;
+		private int methodCount;
+		private String javaDoc;
+		private int docCommentLookupsForJavaDoc;
+		private final List<String> errors = new ArrayList<String>();
+
+		@Override
+		public Set<String> getSupportedAnnotationTypes()
+		{
+			return Collections.singleton(VALJOGenerate.class.getName());
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion()
+		{
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+		{
+			for (Element e : roundEnv.getElementsAnnotatedWith(VALJOGenerate.class))
+			{
+				try {
+					Configuration configuration = new Configuration(e.asType().toString(), processingEnv.getSourceVersion(), e.getAnnotation(VALJOGenerate.class), Locale.ENGLISH, new HashMap<String,String>());
+					ResourceLoader resourceLoader = new ResourceLoader(null, packageName.replace(".", File.separator));
+					STTemplates templates = new STTemplates(resourceLoader, configuration);
+
+					ModelBuilder builder = new ModelBuilder(processingEnv.getTypeUtils(), countCalls(processingEnv.getElementUtils()), (element, kind, msg) -> {
+						if (kind==Kind.ERROR)
+							errors.add(msg);
+					}, (TypeElement)e, configuration, resourceLoader, templates);
+
+					Clazz clazz = builder.buildNewCLazz();
+					methodCount = clazz.getPropertyMethods().size()+clazz.getMethods().size();
+
+					// Javadoc is looked up when used.
+					int lookupsBefore = docCommentLookups;
+					javaDoc = clazz.getPropertyMethods().stream().filter(p -> p.getName().equals("getValue0x0")).findFirst().get().getJavaDoc();
+					docCommentLookupsForJavaDoc = docCommentLookups-lookupsBefore;
+				} catch (Exception ex) {
+					errors.add(ex.toString());
+				}
+			}
+
+			return true;
+		}
+
+		private Elements countCalls(Elements elements)
+		{
+			return (Elements)Proxy.newProxyInstance(Elements.class.getClassLoader(), new Class<?>[] { Elements.class }, (proxy, method, args) -> {
+				if (method.getName().equals("overrides"))
+					++overrideChecks;
+				else if (method.getName().equals("getDocComment"))
+					++docCommentLookups;
+				try {
+					return method.invoke(elements, args);
+				} catch (InvocationTargetException ex) {
+					throw ex.getCause();
+				}
+			});
+		}
+	}
+
+	@Test
+	public void testModelBuildingScalesNearLinearly() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("scalingtest")), "modelbuilder");
+
+		ModelBuildingProcessor small = buildModel(workPath.resolve("small"), 500);
+		ModelBuildingProcessor large = buildModel(workPath.resolve("large"), 2000);
+
+		Assert.assertTrue(large.methodCount>=2000);
+
+		// Only methods with the same name are checked, so each getter (and the few other inherited methods) is checked against itself and each of
+		// the redeclared describe methods against all of them. Checking all pairs would be more than 4 million checks for 2000 methods.
+		int maxChecks = 2*2000+traitCount*traitCount;
+		Assert.assertTrue("Building a model for 2000 methods made "+large.overrideChecks+" override checks", large.overrideChecks>0 && large.overrideChecks<=maxChecks);
+		Assert.assertTrue("Override checks grew from "+small.overrideChecks+" to "+large.overrideChecks+" for 4 times more methods", large.overrideChecks-small.overrideChecks<=2*(2000-500));
+
+		// Only the javadoc of the annotated interface itself is looked up while building. The javadoc of a method is looked up once when used.
+		Assert.assertEquals(1, large.docCommentLookups-large.docCommentLookupsForJavaDoc);
+		Assert.assertEquals(1, large.docCommentLookupsForJavaDoc);
+		Assert.assertEquals("Value 0 of trait 0.", large.javaDoc.trim());
+	}
+
+	private ModelBuildingProcessor buildModel(Path workPath, int methodCount) throws Exception
+	{
+		List<Path> sources = writeTraitHierarchy(workPath.resolve("src"), methodCount);
+
+		ModelBuildingProcessor processor = new ModelBuildingProcessor();
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, processor);
+
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+		Assert.assertTrue(processor.errors.toString(), processor.errors.isEmpty());
+
+		return processor;
+	}
+
+	/**
+	 * Write an annotated interface that inherit a chain of trait interfaces with getters. Every trait also redeclares a common method
+	 * of its parent, so there are overrides to resolve as well.
+	 */
+	private static List<Path> writeTraitHierarchy(Path sourcePath, int methodCount) throws Exception
+	{
+		Path packagePath = Files.createDirectories(sourcePath.resolve(packageName.replace(".", File.separator)));
+		List<Path> sources = new ArrayList<Path>();
+
+		int methodsPerTrait = methodCount/traitCount;
+		for (int t=0; t<traitCount; ++t)
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append("package ").append(packageName).append(";\n\n");
+			sb.append("public interface Trait").append(t).append(t>0 ? " extends Trait"+(t-1) : "").append("\n{\n");
+			sb.append("  Object describe();\n");
+			for (int m=0; m<methodsPerTrait; ++m)
+				sb.append("  /** Value ").append(m).append(" of trait ").append(t).append(". */\n  int getValue").append(t).append('x').append(m).append("();\n");
+			sb.append("}\n");
+
+			sources.add(Files.write(packagePath.resolve("Trait"+t+".java"), sb.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+
+		String annotated = "package "+packageName+";\n\n"
+		                   +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+				           +"public interface WideInterface extends Trait"+(traitCount-1)+"\n{\n}\n";
+		sources.add(Files.write(packagePath.resolve("WideInterface.java"), annotated.getBytes(StandardCharsets.UTF_8)));
+
+		return sources;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.processor.builders;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fortyoneconcepts.valjogen.annotations.VALJOGenerate;
+import com.fortyoneconcepts.valjogen.model.Clazz;
+import com.fortyoneconcepts.valjogen.model.Configuration;
+import com.fortyoneconcepts.valjogen.processor.ResourceLoader;
+import com.fortyoneconcepts.valjogen.processor.STTemplates;
+import com.fortyoneconcepts.valjogen.test.util.ProcessorRunner;
+import com.fortyoneconcepts.valjogen.test.util.TestSupport;
+
+/**
+ * Test that the analysis of supertypes is shared by interfaces in the same round without changing the models built.
+ *
+ * @author mmc
+ */
+public class SharedSupertypeAnalysisTest
+{
+	private static final String packageName = "com.fortyoneconcepts.valjogen.test.shared";
+
+	/**
+	 * Processor that builds models for all annotated interfaces with a shared symbol table and with a symbol table of their own.
+	 */
+	private static final class ModelBuildingProcessor extends AbstractProcessor
+	{
+		private final List<String> errors = new ArrayList<String>();
+
+		@Override
+		public Set<String> getSupportedAnnotationTypes()
+		{
+			return Collections.singleton(VALJOGenerate.class.getName());
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion()
+		{
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+		{
+			Set<? extends Element> annotatedElements = roundEnv.getElementsAnnotatedWith(VALJOGenerate.class);
+			if (annotatedElements.isEmpty())
+				return true;
+
+			TypeSymbolTable sharedSymbolTable = new TypeSymbolTable(processingEnv.getTypeUtils());
+
+			try {
+				for (Element e : annotatedElements)
+				{
+					String expected = describe(buildModel((TypeElement)e, new TypeSymbolTable(processingEnv.getTypeUtils())));
+					Assert.assertTrue(expected, expected.contains("describe(overridden)"));
+					Assert.assertEquals(expected, describe(buildModel((TypeElement)e, sharedSymbolTable)));
+				}
+
+				int analysedElementCount = sharedSymbolTable.analysedElementCount();
+				Assert.assertTrue("No elements analysed", analysedElementCount>0);
+
+				for (Element e : annotatedElements)
+					buildModel((TypeElement)e, sharedSymbolTable);
+
+				Assert.assertEquals(analysedElementCount, sharedSymbolTable.analysedElementCount());
+			} catch (Exception | AssertionError ex) {
+				errors.add(ex.toString());
+			}
+
+			return true;
+		}
+
+		private Clazz buildModel(TypeElement e, TypeSymbolTable symbolTable) throws Exception
+		{
+			Configuration configuration = new Configuration(e.asType().toString(), processingEnv.getSourceVersion(), e.getAnnotation(VALJOGenerate.class), Locale.ENGLISH, new HashMap<String,String>());
+			ResourceLoader resourceLoader = new ResourceLoader(null, packageName.replace(".", File.separator));
+			STTemplates templates = new STTemplates(resourceLoader, configuration);
+
+			ModelBuilder builder = new ModelBuilder(processingEnv.getTypeUtils(), processingEnv.getElementUtils(), (element, kind, msg) -> {
+				if (kind==Kind.ERROR)
+					errors.add(msg);
+			}, e, configuration, resourceLoader, templates, symbolTable);
+
+			return builder.buildNewCLazz();
+		}
+
+		/**
+		 * Describe the members and methods of a model including which methods are overridden.
+		 */
+		private static String describe(Clazz clazz)
+		{
+			String members = clazz.getMembers().stream().map(m -> m.getName()).collect(Collectors.joining(","));
+			String methods = Stream.concat(clazz.getPropertyMethods().stream(), clazz.getMethods().stream())
+					               .map(m -> m.getName()+(m.isOverridden() ? "(overridden)" : ""))
+					               .collect(Collectors.joining(","));
+			return clazz.getQualifiedName()+" members: "+members+" methods: "+methods;
+		}
+	}
+
+	@Test
+	public void testInterfacesWithSharedSupertypes() throws Exception
+	{
+		Path workPath = Files.createTempDirectory(Files.createDirectories(TestSupport.getTargetPath().resolve("sharedtest")), "model");
+		Path packagePath = Files.createDirectories(workPath.resolve("src").resolve(packageName.replace(".", File.separator)));
+
+		List<Path> sources = new ArrayList<Path>();
+		sources.add(Files.write(packagePath.resolve("Named.java"), ("package "+packageName+";\n\n"
+		                                                            +"public interface Named\n{\n"
+				                                                    +"  String getName();\n"
+		                                                            +"  Object describe();\n"
+				                                                    +"}\n").getBytes(StandardCharsets.UTF_8)));
+
+		for (String name : new String[] { "Person", "Company" })
+		{
+			sources.add(Files.write(packagePath.resolve(name+".java"), ("package "+packageName+";\n\n"
+			                                                            +"@com.fortyoneconcepts.valjogen.annotations.VALJOGenerate\n"
+					                                                    +"public interface "+name+" extends Named, Comparable<"+name+">\n{\n"
+			                                                            +"  int getSize();\n"
+					                                                    +"  String describe();\n"
+			                                                            +"}\n").getBytes(StandardCharsets.UTF_8)));
+		}
+
+		ModelBuildingProcessor processor = new ModelBuildingProcessor();
+		ProcessorRunner.Result result = ProcessorRunner.run(workPath, sources, processor);
+
+		Assert.assertTrue(result.diagnostics.toString(), result.success);
+		Assert.assertTrue(processor.errors.toString(), processor.errors.isEmpty());
+	}
+}
@@ -0,0 +1,102 @@
+/*
+* Copyright (C) 2014 41concepts Aps
+*/
+package com.fortyoneconcepts.valjogen.test.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import com.fortyoneconcepts.valjogen.processor.AnnotationProcessor;
+
+/**
+ * Runs javac with our annotation processor on real files so tests can inspect notes and generated files. Use the google compile-testing
+ * framework (see {@link TestSupport}) for tests that only need to check if compilation succeeds.
+ *
+ * @author mmc
+ */
+public final class ProcessorRunner
+{
+	/**
+	 * Contains the result of running javac including all diagnostic messages.
+	 *
+	 * @author mmc
+	 */
+	public static final class Result
+	{
+		public final boolean success;
+		public final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+		public final Path sourceOutputPath;
+		public final Path classOutputPath;
+
+		private Result(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path sourceOutputPath, Path classOutputPath)
+		{
+			this.success=success;
+			this.diagnostics=diagnostics;
+			this.sourceOutputPath=sourceOutputPath;
+			this.classOutputPath=classOutputPath;
+		}
+
+		public List<String> getMessages(Diagnostic.Kind kind)
+		{
+			return diagnostics.stream().filter(d -> d.getKind()==kind).map(d -> d.getMessage(Locale.ENGLISH)).collect(Collectors.toList());
+		}
+
+		public String getGeneratedSource(String qualifiedClassName) throws IOException
+		{
+			return new String(Files.readAllBytes(sourceOutputPath.resolve(qualifiedClassName.replace('.', '/')+".java")), StandardCharsets.UTF_8);
+		}
+	}
+
+	private ProcessorRunner()
+	{
+	}
+
+	public static Result run(Path outputPath, List<Path> sourceFiles, Map<String,String> options) throws IOException
+	{
+		return run(outputPath, sourceFiles, new AnnotationProcessor(options));
+	}
+
+	public static Result run(Path outputPath, List<Path> sourceFiles, Processor processor) throws IOException
+	{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+		Path sourceOutputPath = Files.createDirectories(outputPath.resolve("generated-sources"));
+		Path classOutputPath = Files.createDirectories(outputPath.resolve("classes"));
+
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, StandardCharsets.UTF_8))
+		{
+			fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singleton(sourceOutputPath.toFile()));
+			fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(classOutputPath.toFile()));
+
+			Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(sourceFiles.stream().map(Path::toFile).collect(Collectors.toList()));
+
+			List<String> javacOptions = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path"), "-parameters"));
+
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, javacOptions, null, compilationUnits);
+			task.setProcessors(Collections.singleton(processor));
+
+			boolean success = task.call();
+
+			return new Result(success, diagnostics.getDiagnostics(), sourceOutputPath, classOutputPath);
+		}
+	}
+}